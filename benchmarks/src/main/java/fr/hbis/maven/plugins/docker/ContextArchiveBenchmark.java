@@ -0,0 +1,107 @@
+package fr.hbis.maven.plugins.docker;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.model.Resource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ContextArchiveBenchmark {
+    @Param({ "SMALL_FILES", "LARGE_FILES", "DEEP_TREE" })
+    private ContextTree tree;
+
+    private Path root;
+    private BuildContext context;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        root = Files.createTempDirectory("docker-benchmark");
+        tree.generate(root.resolve("source"), new Random(42));
+
+        Resource resource = new Resource();
+        resource.setDirectory(root.resolve("source").toString());
+        resource.setTargetPath("/root");
+
+        context = new BuildContext();
+        ContextScanner.scan(resource, context);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        ContextTree.delete(root);
+    }
+
+    @Benchmark
+    public long write() throws IOException {
+        CountingOutputStream output = new CountingOutputStream();
+        new ContextArchive(context).write(output);
+
+        return output.count;
+    }
+
+    @Benchmark
+    public long writeCompressed() throws IOException {
+        CountingOutputStream output = new CountingOutputStream();
+        ContextArchive archive = new ContextArchive(context);
+        archive.setCompression(6, 0);
+        archive.write(output);
+
+        return output.count;
+    }
+
+    @Benchmark
+    public long stream() throws IOException {
+        ContextArchive archive = new ContextArchive(context);
+        byte[] buffer = new byte[65536];
+        long count = 0;
+
+        try (InputStream input = archive.stream()) {
+            int read;
+
+            while ((read = input.read(buffer)) != -1) {
+                count += read;
+            }
+        }
+
+        archive.await();
+
+        return count;
+    }
+
+    private static class CountingOutputStream extends OutputStream {
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package fr.hbis.maven.plugins.docker;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.model.Resource;
+import org.codehaus.plexus.util.DirectoryScanner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ContextScannerBenchmark {
+    private static final String[] INCLUDES = { "**/*.txt", "**/*.class", "**/a/**", "dir1*/**" };
+    private static final String[] EXCLUDES = { "**/*.log", "**/b/b/**", "dir2*/**", "**/file1*" };
+
+    @Param({ "SMALL_FILES", "LARGE_FILES", "DEEP_TREE" })
+    private ContextTree tree;
+
+    @Param({ "false", "true" })
+    private boolean patterns;
+
+    private Path root;
+    private Resource resource;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        root = Files.createTempDirectory("docker-benchmark");
+        tree.generate(root.resolve("source"), new Random(42));
+
+        resource = new Resource();
+        resource.setDirectory(root.resolve("source").toString());
+        resource.setTargetPath("/root");
+
+        if (patterns) {
+            for (String include : INCLUDES) {
+                resource.addInclude(include);
+            }
+
+            for (String exclude : EXCLUDES) {
+                resource.addExclude(exclude);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        ContextTree.delete(root);
+    }
+
+    @Benchmark
+    public int contextScanner() throws IOException {
+        BuildContext context = new BuildContext();
+        ContextScanner.scan(resource, context);
+
+        return context.size();
+    }
+
+    @Benchmark
+    public String[] directoryScanner() {
+        DirectoryScanner scanner = new DirectoryScanner();
+        scanner.setBasedir(new File(resource.getDirectory()));
+        scanner.setIncludes(patterns ? INCLUDES : null);
+        scanner.setExcludes(patterns ? EXCLUDES : null);
+        scanner.scan();
+
+        return scanner.getIncludedFiles();
+    }
+
+    @Benchmark
+    public int dockerIgnore() throws IOException {
+        BuildContext context = new BuildContext(new DockerIgnore(Arrays.asList(EXCLUDES)));
+        ContextScanner.scan(resource, context);
+
+        return context.size();
+    }
+}
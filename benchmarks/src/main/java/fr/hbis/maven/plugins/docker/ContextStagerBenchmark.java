@@ -0,0 +1,98 @@
+package fr.hbis.maven.plugins.docker;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.model.Resource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ContextStagerBenchmark {
+    @Param({ "SMALL_FILES", "LARGE_FILES", "DEEP_TREE" })
+    private ContextTree tree;
+
+    @Param({ "COPY", "HARDLINK" })
+    private String mode;
+
+    @Param({ "1", "4" })
+    private int threads;
+
+    private Path root;
+    private Path stagingPath;
+    private Path manifestPath;
+    private BuildContext context;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        root = Files.createTempDirectory("docker-benchmark");
+        stagingPath = root.resolve("docker");
+        manifestPath = root.resolve("docker.manifest");
+
+        tree.generate(root.resolve("source"), new Random(42));
+
+        Resource resource = new Resource();
+        resource.setDirectory(root.resolve("source").toString());
+        resource.setTargetPath("/root");
+
+        context = new BuildContext();
+        ContextScanner.scan(resource, context);
+    }
+
+    @Setup(Level.Invocation)
+    public void clean(BenchmarkParams params) throws IOException {
+        ContextTree.delete(stagingPath);
+        Files.deleteIfExists(manifestPath);
+
+        if (params.getBenchmark().endsWith(".restage")) {
+            stage();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        ContextTree.delete(root);
+    }
+
+    @Benchmark
+    public int stage() throws IOException {
+        StagingManifest manifest = new StagingManifest(manifestPath, stagingPath);
+        manifest.load();
+
+        new ContextStager(stagingPath, manifest, StagingMode.valueOf(mode), threads).stage(context);
+        manifest.save();
+
+        return manifest.getCopiedFiles();
+    }
+
+    @Benchmark
+    public int restage() throws IOException {
+        StagingManifest manifest = new StagingManifest(manifestPath, stagingPath);
+        manifest.load();
+
+        new ContextStager(stagingPath, manifest, StagingMode.valueOf(mode), threads).stage(context);
+        manifest.save();
+
+        return manifest.getCopiedFiles();
+    }
+}
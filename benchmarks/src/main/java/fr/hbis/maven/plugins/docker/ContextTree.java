@@ -0,0 +1,76 @@
+package fr.hbis.maven.plugins.docker;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Random;
+
+public enum ContextTree {
+    SMALL_FILES {
+        @Override
+        void generate(Path root, Random random) throws IOException {
+            for (int i = 0; i < 5000; i++) {
+                write(root.resolve("dir" + (i % 50)).resolve("file" + i + (i % 3 == 0 ? ".txt" : ".class")), 1024,
+                        random);
+            }
+        }
+    },
+    LARGE_FILES {
+        @Override
+        void generate(Path root, Random random) throws IOException {
+            for (int i = 0; i < 4; i++) {
+                write(root.resolve("lib").resolve("fat" + i + ".jar"), 32 * 1024 * 1024, random);
+            }
+        }
+    },
+    DEEP_TREE {
+        @Override
+        void generate(Path root, Random random) throws IOException {
+            generate(root, random, 0);
+        }
+
+        private void generate(Path directory, Random random, int depth) throws IOException {
+            write(directory.resolve("file.txt"), 512, random);
+            write(directory.resolve("file.log"), 512, random);
+
+            if (depth < 10) {
+                generate(directory.resolve("a"), random, depth + 1);
+                generate(directory.resolve("b"), random, depth + 1);
+            }
+        }
+    };
+
+    abstract void generate(Path root, Random random) throws IOException;
+
+    static void write(Path file, int size, Random random) throws IOException {
+        byte[] content = new byte[size];
+        random.nextBytes(content);
+
+        Files.createDirectories(file.getParent());
+        Files.write(file, content);
+    }
+
+    static void delete(Path root) throws IOException {
+        if (Files.notExists(root))
+            return;
+
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                Files.delete(dir);
+
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+}
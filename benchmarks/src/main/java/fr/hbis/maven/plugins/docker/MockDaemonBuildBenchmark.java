@@ -0,0 +1,115 @@
+package fr.hbis.maven.plugins.docker;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.model.Resource;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.core.DefaultDockerClientConfig;
+import com.github.dockerjava.core.DockerClientBuilder;
+import com.github.dockerjava.core.command.BuildImageResultCallback;
+import com.github.dockerjava.jaxrs.JerseyDockerCmdExecFactory;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MockDaemonBuildBenchmark {
+    @Param({ "SMALL_FILES", "DEEP_TREE" })
+    private ContextTree tree;
+
+    @Param({ "false", "true" })
+    private boolean compress;
+
+    private Path root;
+    private BuildContext context;
+    private MockDockerDaemon daemon;
+    private DockerClient dockerClient;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Upload {
+        public long bytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytes = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        root = Files.createTempDirectory("docker-benchmark");
+        tree.generate(root.resolve("source"), new Random(42));
+
+        Resource resource = new Resource();
+        resource.setDirectory(root.resolve("source").toString());
+        resource.setTargetPath("/root");
+
+        context = new BuildContext();
+        ContextScanner.scan(resource, context);
+
+        daemon = new MockDockerDaemon();
+        dockerClient = DockerClientBuilder
+                .getInstance(DefaultDockerClientConfig.createDefaultConfigBuilder()
+                        .withDockerHost(daemon.getDockerHost()).withDockerTlsVerify(false).build())
+                .withDockerCmdExecFactory(
+                        new JerseyDockerCmdExecFactory().withMaxTotalConnections(8).withMaxPerRouteConnections(8))
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        DockerClients.close(dockerClient);
+        daemon.close();
+        ContextTree.delete(root);
+    }
+
+    @Benchmark
+    public String build(Upload upload) throws IOException {
+        return send(upload);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String buildConcurrent(Upload upload) throws IOException {
+        return send(upload);
+    }
+
+    private String send(Upload upload) throws IOException {
+        ContextArchive archive = new ContextArchive(context);
+
+        if (compress) {
+            archive.setCompression(6, 0);
+        }
+
+        String imageId = dockerClient.buildImageCmd(archive.stream()).exec(new BuildImageResultCallback())
+                .awaitImageId();
+        archive.await();
+
+        upload.bytes += compress ? archive.getCompressedBytes() : archive.getBytesWritten();
+
+        return imageId;
+    }
+}
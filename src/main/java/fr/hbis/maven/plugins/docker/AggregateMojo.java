@@ -0,0 +1,64 @@
+package fr.hbis.maven.plugins.docker;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.project.MavenProject;
+
+@Mojo(name = AggregateMojo.GOAL, aggregator = true)
+public class AggregateMojo extends BuildMojo {
+    static final String GOAL = "build-all";
+
+    private List<ImageDefinition> definitions;
+
+    @Override
+    boolean isDeferred() {
+        return false;
+    }
+
+    @Override
+    void validateImages() throws MojoExecutionException {
+        if (getImageDefinitions().isEmpty()) {
+            throw new MojoExecutionException("no docker images configured in the reactor");
+        }
+
+        for (ImageDefinition image : getImageDefinitions()) {
+            if (image.getDirectory() == null) {
+                throw new MojoExecutionException("missing option 'directory' in " + image.getProject().getId());
+            }
+
+            if (image.getImageName() == null) {
+                throw new MojoExecutionException("missing option 'imageName' in " + image.getProject().getId());
+            }
+        }
+    }
+
+    @Override
+    List<ImageDefinition> getImageDefinitions() {
+        if (definitions == null) {
+            definitions = new ArrayList<>();
+
+            for (MavenProject module : session.getProjects()) {
+                List<ImageDefinition> moduleDefinitions = ModuleImages.read(module, execution.getGroupId(),
+                        execution.getArtifactId());
+
+                if (!moduleDefinitions.isEmpty()) {
+                    getLog().info(String.format("Collected %d image(s) from %s: %s", moduleDefinitions.size(),
+                            module.getArtifactId(), moduleDefinitions));
+
+                    for (String option : ModuleImages.getIgnoredOptions(module, execution.getGroupId(),
+                            execution.getArtifactId(), execution.getConfiguration())) {
+                        getLog().warn(String.format("Option '%s' of %s is ignored, the %s goal uses its own value",
+                                option, module.getArtifactId(), GOAL));
+                    }
+                }
+
+                definitions.addAll(moduleDefinitions);
+            }
+        }
+
+        return definitions;
+    }
+}
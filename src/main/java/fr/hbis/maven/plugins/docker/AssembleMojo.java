@@ -0,0 +1,283 @@
+package fr.hbis.maven.plugins.docker;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Resource;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+import org.apache.maven.project.MavenProject;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.artifact.DefaultArtifact;
+
+@Mojo(name = "assemble", requiresDependencyResolution = ResolutionScope.RUNTIME)
+public class AssembleMojo extends AbstractMojo {
+    @Parameter(defaultValue = "${session}", readonly = true)
+    protected MavenSession session;
+
+    @Parameter(defaultValue = "${basedir}", readonly = true)
+    protected File basedir;
+
+    @Parameter(defaultValue = "${project}", readonly = true)
+    protected MavenProject project;
+
+    @Parameter(property = "project.build.directory")
+    protected File buildDirectory;
+
+    @Parameter(property = "skipDocker", defaultValue = "false")
+    private boolean skipDocker;
+
+    @Parameter(property = "baseImage")
+    private String baseImage;
+
+    @Parameter(property = "imageName")
+    private String imageName;
+
+    @Parameter(property = "imageTags")
+    private List<String> imageTags;
+
+    @Parameter(property = "resources")
+    private List<Resource> resources;
+
+    @Parameter(property = "entrypoint")
+    private List<String> entrypoint;
+
+    @Parameter(property = "cmd")
+    private List<String> cmd;
+
+    @Parameter(property = "workingDir")
+    private String workingDir;
+
+    @Parameter(property = "user")
+    private String user;
+
+    @Parameter(property = "environment")
+    private Map<String, String> environment;
+
+    @Parameter(property = "labels")
+    private Map<String, String> labels;
+
+    @Parameter(property = "os", defaultValue = "linux")
+    private String os;
+
+    @Parameter(property = "architecture", defaultValue = "amd64")
+    private String architecture;
+
+    @Parameter(property = "format", defaultValue = "oci")
+    private String format;
+
+    @Parameter(property = "outputFile")
+    private File outputFile;
+
+    @Parameter(property = "layered", defaultValue = "false")
+    private boolean layered;
+
+    @Parameter(property = "layerTargetPath", defaultValue = "/app")
+    private String layerTargetPath;
+
+    @Parameter(property = "reproducible", defaultValue = "false")
+    private boolean reproducible;
+
+    @Parameter(property = "outputTimestamp", defaultValue = "${project.build.outputTimestamp}")
+    private String outputTimestamp;
+
+    @Parameter(property = "layerCache", defaultValue = "true")
+    private boolean layerCache;
+
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        if (skipDocker) {
+            getLog().info("Skipping docker assemble");
+            return;
+        }
+
+        validateParameters();
+
+        try {
+            assemble();
+        } catch (IOException e) {
+            throw new MojoExecutionException("Error during plugin execution", e);
+        }
+    }
+
+    private void validateParameters() throws MojoExecutionException {
+        if (imageName == null) {
+            throw new MojoExecutionException("missing option 'imageName'");
+        }
+
+        try {
+            ImageFormat.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new MojoExecutionException("invalid option 'format': " + format);
+        }
+
+        if (reproducible) {
+            try {
+                OutputTimestamp.parse(outputTimestamp);
+            } catch (IllegalArgumentException e) {
+                throw new MojoExecutionException("invalid option 'outputTimestamp': " + outputTimestamp);
+            }
+        }
+    }
+
+    private void assemble() throws IOException, MojoExecutionException {
+        long start = System.nanoTime();
+        Path workPath = Paths.get(buildDirectory.toString(), "docker-assemble");
+        ImageFormat imageFormat = ImageFormat.valueOf(format.toUpperCase(Locale.ROOT));
+        Path output = getOutput(imageFormat);
+
+        BaseImage base;
+
+        if (baseImage == null) {
+            base = BaseImage.scratch(os, architecture);
+        } else {
+            Path basePath = resolveBaseImage();
+
+            if (basePath.toAbsolutePath().normalize().startsWith(output.toAbsolutePath().normalize())) {
+                throw new MojoExecutionException("invalid option 'outputFile': " + output
+                        + " would overwrite the base image " + basePath);
+            }
+
+            getLog().info("Loading base image from " + basePath + " ...");
+
+            base = BaseImage.load(basePath, os, architecture, workPath);
+        }
+
+        Date timestamp = reproducible ? OutputTimestamp.parse(outputTimestamp) : null;
+        LayerCache cache = reproducible && layerCache ? new LayerCache(getCacheDirectory()) : null;
+        ImageAssembler assembler = new ImageAssembler(base, workPath, timestamp);
+
+        if (layered) {
+            ProjectLayers layers = new ProjectLayers(project.getArtifacts(),
+                    new File(project.getBuild().getOutputDirectory()), layerTargetPath);
+
+            for (String layer : layers.getLayers()) {
+                BuildContext context = new BuildContext();
+                layers.addTo(layer, context, layers.getDestination(layer));
+
+                addLayer(assembler, context, cache);
+            }
+        }
+
+        BuildContext context = new BuildContext();
+
+        if (resources != null) {
+            for (Resource resource : resources) {
+                ContextScanner.scan(resource, context);
+            }
+        }
+
+        addLayer(assembler, context, cache);
+
+        if (cache != null) {
+            getLog().info(String.format("Layer cache: %d reused, %d created", cache.getHits(), cache.getMisses()));
+        }
+
+        if (entrypoint != null && !entrypoint.isEmpty()) {
+            assembler.setEntrypoint(entrypoint);
+        }
+
+        if (cmd != null && !cmd.isEmpty()) {
+            assembler.setCmd(cmd);
+        }
+
+        if (workingDir != null) {
+            assembler.setWorkingDir(workingDir);
+        }
+
+        if (user != null) {
+            assembler.setUser(user);
+        }
+
+        if (environment != null) {
+            assembler.addEnvironment(environment);
+        }
+
+        if (labels != null) {
+            assembler.addLabels(labels);
+        }
+
+        List<String> tags = imageTags == null || imageTags.isEmpty() ? Collections.singletonList("latest")
+                : imageTags;
+        String digest;
+
+        if (imageFormat == ImageFormat.OCI) {
+            digest = assembler.writeLayout(output, imageName, tags);
+        } else {
+            digest = assembler.writeArchive(output, imageName, tags);
+        }
+
+        getLog().info(String.format("Assembled image %s (%s, %d layers) into %s in %d ms", imageName, digest,
+                assembler.getLayers().size(), output, (System.nanoTime() - start) / 1000000));
+    }
+
+    private Path getOutput(ImageFormat imageFormat) {
+        if (outputFile != null) {
+            return outputFile.toPath();
+        }
+
+        return Paths.get(buildDirectory.toString(),
+                imageFormat == ImageFormat.OCI ? "docker-oci" : "docker-image.tar");
+    }
+
+    private void addLayer(ImageAssembler assembler, BuildContext context, LayerCache cache) throws IOException {
+        if (context.size() == 0)
+            return;
+
+        ImageLayer layer = assembler.addLayer(context, cache);
+
+        getLog().info(String.format("Added layer %s: %d files, %d bytes (%d bytes compressed)", layer.getDigest(),
+                context.getFileCount(), context.getByteCount(), layer.getSize()));
+    }
+
+    private Path getCacheDirectory() {
+        if (session != null && session.getRepositorySession() != null) {
+            return session.getRepositorySession().getLocalRepository().getBasedir().toPath()
+                    .resolve(".cache/docker-maven-plugin");
+        }
+
+        return Paths.get(buildDirectory.toString(), "docker-assemble", "cache");
+    }
+
+    private Path resolveBaseImage() throws MojoExecutionException {
+        Path path = Paths.get(baseImage);
+
+        if (!path.isAbsolute() && basedir != null) {
+            path = basedir.toPath().resolve(path);
+        }
+
+        if (Files.exists(path)) {
+            return path;
+        }
+
+        if (session != null && baseImage.split(":").length >= 3) {
+            RepositorySystemSession repositorySession = session.getRepositorySession();
+
+            try {
+                Path artifactPath = repositorySession.getLocalRepository().getBasedir().toPath().resolve(
+                        repositorySession.getLocalRepositoryManager()
+                                .getPathForLocalArtifact(new DefaultArtifact(baseImage)));
+
+                if (Files.exists(artifactPath)) {
+                    return artifactPath;
+                }
+            } catch (IllegalArgumentException e) {
+                throw new MojoExecutionException("invalid option 'baseImage': " + baseImage);
+            }
+        }
+
+        throw new MojoExecutionException("base image not found: " + baseImage);
+    }
+}
@@ -0,0 +1,204 @@
+package fr.hbis.maven.plugins.docker;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.codehaus.plexus.util.FileUtils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+class BaseImage {
+    static final String OCI_LAYOUT = "oci-layout";
+    static final String OCI_INDEX = "index.json";
+    static final String DOCKER_MANIFEST = "manifest.json";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final ObjectNode config;
+    private final List<ImageLayer> layers;
+
+    private BaseImage(ObjectNode config, List<ImageLayer> layers) {
+        this.config = config;
+        this.layers = layers;
+    }
+
+    ObjectNode getConfig() {
+        return config;
+    }
+
+    List<ImageLayer> getLayers() {
+        return Collections.unmodifiableList(layers);
+    }
+
+    static BaseImage scratch(String os, String architecture) {
+        ObjectNode config = MAPPER.createObjectNode();
+        config.put("architecture", architecture);
+        config.put("os", os);
+        config.putObject("config");
+        config.putObject("rootfs").put("type", "layers").putArray("diff_ids");
+
+        return new BaseImage(config, new ArrayList<ImageLayer>());
+    }
+
+    static BaseImage load(Path path, String os, String architecture, Path workDirectory) throws IOException {
+        if (!Files.isDirectory(path)) {
+            Path extractPath = workDirectory.resolve("base");
+            extract(path, extractPath);
+
+            path = extractPath;
+        }
+
+        if (Files.exists(path.resolve(OCI_LAYOUT)) && Files.exists(path.resolve(OCI_INDEX))) {
+            return loadLayout(path, os, architecture);
+        }
+
+        if (Files.exists(path.resolve(DOCKER_MANIFEST))) {
+            return loadArchive(path);
+        }
+
+        throw new IOException("not an OCI image layout or docker archive: " + path);
+    }
+
+    private static BaseImage loadLayout(Path path, String os, String architecture) throws IOException {
+        JsonNode manifest = selectManifest(path, readJson(path.resolve(OCI_INDEX)), os, architecture);
+        ObjectNode config = (ObjectNode) readJson(getBlob(path, manifest.path("config").path("digest").asText()));
+        JsonNode diffIds = config.path("rootfs").path("diff_ids");
+
+        List<ImageLayer> layers = new ArrayList<>();
+        JsonNode descriptors = manifest.path("layers");
+
+        if (descriptors.size() != diffIds.size()) {
+            throw new IOException("layer count does not match image configuration in " + path);
+        }
+
+        for (int i = 0; i < descriptors.size(); i++) {
+            JsonNode descriptor = descriptors.get(i);
+            String mediaType = descriptor.path("mediaType").asText();
+
+            if (mediaType.contains("zstd")) {
+                throw new IOException("unsupported layer media type: " + mediaType);
+            }
+
+            String digest = descriptor.path("digest").asText();
+            layers.add(new ImageLayer(getBlob(path, digest), mediaType.endsWith("gzip"), digest,
+                    diffIds.get(i).asText(), descriptor.path("size").asLong()));
+        }
+
+        return new BaseImage(config, layers);
+    }
+
+    private static JsonNode selectManifest(Path path, JsonNode index, String os, String architecture)
+            throws IOException {
+        JsonNode selected = null;
+
+        for (JsonNode descriptor : index.path("manifests")) {
+            JsonNode platform = descriptor.path("platform");
+
+            if (platform.isMissingNode() || (os.equals(platform.path("os").asText())
+                    && architecture.equals(platform.path("architecture").asText()))) {
+                selected = descriptor;
+                break;
+            }
+        }
+
+        if (selected == null) {
+            throw new IOException(String.format("no %s/%s image in %s", os, architecture, path));
+        }
+
+        JsonNode manifest = readJson(getBlob(path, selected.path("digest").asText()));
+
+        if (manifest.has("manifests")) {
+            return selectManifest(path, manifest, os, architecture);
+        }
+
+        return manifest;
+    }
+
+    private static BaseImage loadArchive(Path path) throws IOException {
+        JsonNode manifest = readJson(path.resolve(DOCKER_MANIFEST)).path(0);
+        ObjectNode config = (ObjectNode) readJson(path.resolve(manifest.path("Config").asText()));
+        JsonNode diffIds = config.path("rootfs").path("diff_ids");
+
+        List<ImageLayer> layers = new ArrayList<>();
+        JsonNode files = manifest.path("Layers");
+
+        if (files.size() != diffIds.size()) {
+            throw new IOException("layer count does not match image configuration in " + path);
+        }
+
+        for (int i = 0; i < files.size(); i++) {
+            Path layer = path.resolve(files.get(i).asText());
+            String diffId = diffIds.get(i).asText();
+
+            if (isGzip(layer)) {
+                layers.add(new ImageLayer(layer, true, "sha256:" + StagingManifest.hash(layer), diffId,
+                        Files.size(layer)));
+            } else {
+                layers.add(new ImageLayer(layer, false, diffId, diffId, Files.size(layer)));
+            }
+        }
+
+        return new BaseImage(config, layers);
+    }
+
+    private static Path getBlob(Path path, String digest) throws IOException {
+        int separator = digest.indexOf(':');
+
+        if (separator < 0) {
+            throw new IOException("invalid digest: " + digest);
+        }
+
+        Path blob = path.resolve("blobs").resolve(digest.substring(0, separator))
+                .resolve(digest.substring(separator + 1));
+
+        if (!Files.exists(blob)) {
+            throw new IOException("missing blob " + digest + " in " + path);
+        }
+
+        return blob;
+    }
+
+    private static JsonNode readJson(Path path) throws IOException {
+        return MAPPER.readTree(path.toFile());
+    }
+
+    static boolean isGzip(Path path) throws IOException {
+        try (InputStream input = Files.newInputStream(path)) {
+            return input.read() == 0x1f && input.read() == 0x8b;
+        }
+    }
+
+    private static void extract(Path archive, Path destination) throws IOException {
+        FileUtils.deleteDirectory(destination.toFile());
+        Files.createDirectories(destination);
+
+        try (TarArchiveInputStream tar = new TarArchiveInputStream(
+                new BufferedInputStream(Files.newInputStream(archive)))) {
+            TarArchiveEntry entry;
+
+            while ((entry = tar.getNextTarEntry()) != null) {
+                if (!entry.isFile())
+                    continue;
+
+                Path file = destination.resolve(entry.getName()).normalize();
+
+                if (!file.startsWith(destination)) {
+                    throw new IOException("invalid entry in " + archive + ": " + entry.getName());
+                }
+
+                Files.createDirectories(file.getParent());
+                Files.copy(tar, file);
+            }
+        }
+    }
+}
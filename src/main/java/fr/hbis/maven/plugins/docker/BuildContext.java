@@ -0,0 +1,91 @@
+package fr.hbis.maven.plugins.docker;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+class BuildContext {
+    private final Map<String, Path> entries = new LinkedHashMap<>();
+    private final DockerIgnore dockerIgnore;
+
+    private int ignoredEntries;
+    private int fileCount;
+    private long byteCount;
+
+    BuildContext() {
+        this(new DockerIgnore(Collections.<String>emptyList()));
+    }
+
+    BuildContext(DockerIgnore dockerIgnore) {
+        this.dockerIgnore = dockerIgnore;
+    }
+
+    void add(String targetPath, String relativePath, Path source) {
+        add(targetPath, relativePath, source, -1);
+    }
+
+    void add(String targetPath, String relativePath, Path source, long size) {
+        String name = getName(targetPath, relativePath);
+        if (name.isEmpty())
+            return;
+
+        if (dockerIgnore.isIgnored(name)) {
+            ignoredEntries++;
+
+            return;
+        }
+
+        if (entries.put(name, source) == null && size >= 0) {
+            fileCount++;
+            byteCount += size;
+        }
+    }
+
+    boolean isPrunable(String targetPath, String relativePath) {
+        String name = getName(targetPath, relativePath);
+
+        return !name.isEmpty() && dockerIgnore.isPrunable(name);
+    }
+
+    int getFileCount() {
+        return fileCount;
+    }
+
+    long getByteCount() {
+        return byteCount;
+    }
+
+    int getIgnoredEntries() {
+        return ignoredEntries;
+    }
+
+    Map<String, Path> getEntries() {
+        return Collections.unmodifiableMap(entries);
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private static String getName(String targetPath, String relativePath) {
+        return normalize((targetPath == null ? "" : targetPath) + "/" + relativePath);
+    }
+
+    static String normalize(String path) {
+        StringBuilder builder = new StringBuilder();
+
+        for (String segment : path.replace('\\', '/').split("/")) {
+            if (segment.isEmpty() || segment.equals("."))
+                continue;
+
+            if (builder.length() > 0) {
+                builder.append('/');
+            }
+
+            builder.append(segment);
+        }
+
+        return builder.toString();
+    }
+}
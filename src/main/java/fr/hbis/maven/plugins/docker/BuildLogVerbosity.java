@@ -0,0 +1,5 @@
+package fr.hbis.maven.plugins.docker;
+
+enum BuildLogVerbosity {
+    FULL, STEPS, ERRORS
+}
@@ -0,0 +1,195 @@
+package fr.hbis.maven.plugins.docker;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.maven.plugin.logging.Log;
+
+class BuildLogger {
+    private static final Pattern STEP_PATTERN = Pattern.compile("^Step (\\d+)(?:/(\\d+))? : (.*)$");
+    private static final int MAX_INSTRUCTION_LENGTH = 60;
+    private static final Line END = new Line("", false);
+
+    private final Log log;
+    private final BuildLogVerbosity verbosity;
+    private final BlockingQueue<Line> queue;
+    private final List<Step> steps = new ArrayList<>();
+    private final AtomicInteger droppedLines = new AtomicInteger();
+    private final Thread drainThread;
+
+    private Step currentStep;
+
+    BuildLogger(Log log, BuildLogVerbosity verbosity, int capacity) {
+        this.log = log;
+        this.verbosity = verbosity;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.drainThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                drain();
+            }
+        }, "docker-build-log");
+        this.drainThread.setDaemon(true);
+        this.drainThread.start();
+    }
+
+    void stream(String text) {
+        long now = System.nanoTime();
+
+        for (String line : text.split("\\r?\\n")) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty())
+                continue;
+
+            Matcher matcher = STEP_PATTERN.matcher(trimmed);
+
+            if (matcher.matches()) {
+                startStep(trimmed, now);
+                enqueue(new Line(trimmed, false), verbosity != BuildLogVerbosity.ERRORS);
+            } else if (verbosity == BuildLogVerbosity.FULL) {
+                enqueue(new Line(trimmed, false), false);
+            }
+        }
+    }
+
+    void error(String text) {
+        enqueue(new Line(text.trim(), true), true);
+    }
+
+    void close() {
+        long now = System.nanoTime();
+
+        synchronized (this) {
+            if (currentStep != null) {
+                currentStep.end = now;
+                currentStep = null;
+            }
+        }
+
+        enqueue(END, true);
+
+        try {
+            drainThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        if (droppedLines.get() > 0) {
+            log.warn(String.format("Dropped %d build log lines", droppedLines.get()));
+        }
+
+        logSteps();
+    }
+
+    List<Step> getSteps() {
+        synchronized (this) {
+            return new ArrayList<>(steps);
+        }
+    }
+
+    private synchronized void startStep(String line, long now) {
+        if (currentStep != null) {
+            currentStep.end = now;
+        }
+
+        currentStep = new Step(line, now);
+        steps.add(currentStep);
+    }
+
+    private void enqueue(Line line, boolean required) {
+        while (!queue.offer(line)) {
+            if (!required) {
+                droppedLines.incrementAndGet();
+
+                return;
+            }
+
+            if (queue.poll() != null) {
+                droppedLines.incrementAndGet();
+            }
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            Line line;
+
+            try {
+                line = queue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            if (line == END)
+                return;
+
+            if (line.error) {
+                log.error(line.text);
+            } else {
+                log.info(line.text);
+            }
+        }
+    }
+
+    private void logSteps() {
+        List<Step> completedSteps = getSteps();
+        if (completedSteps.isEmpty())
+            return;
+
+        log.info("Build step timings:");
+
+        for (Step step : completedSteps) {
+            String instruction = step.instruction;
+
+            if (instruction.length() > MAX_INSTRUCTION_LENGTH) {
+                instruction = instruction.substring(0, MAX_INSTRUCTION_LENGTH) + "...";
+            }
+
+            log.info(String.format("  %-8s %8d ms  %s", step.number, step.getDuration(), instruction));
+        }
+    }
+
+    private static class Line {
+        private final String text;
+        private final boolean error;
+
+        Line(String text, boolean error) {
+            this.text = text;
+            this.error = error;
+        }
+    }
+
+    static class Step {
+        private final String number;
+        private final String instruction;
+        private final long start;
+        private long end;
+
+        Step(String line, long start) {
+            Matcher matcher = STEP_PATTERN.matcher(line);
+            matcher.matches();
+
+            this.number = matcher.group(2) != null ? matcher.group(1) + "/" + matcher.group(2) : matcher.group(1);
+            this.instruction = matcher.group(3);
+            this.start = start;
+            this.end = start;
+        }
+
+        String getNumber() {
+            return number;
+        }
+
+        String getInstruction() {
+            return instruction;
+        }
+
+        long getDuration() {
+            return (end - start) / 1000000;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package fr.hbis.maven.plugins.docker;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+class BuildMetrics {
+    static final String EXECUTION = "execution";
+
+    private final long start = System.nanoTime();
+    private final long timestamp = System.currentTimeMillis();
+    private final Map<String, Map<String, Long>> phases = new LinkedHashMap<>();
+    private final Map<String, Map<String, Long>> counters = new LinkedHashMap<>();
+
+    private boolean success;
+
+    synchronized void record(String scope, String phase, long startNanos) {
+        add(phases, scope, phase, (System.nanoTime() - startNanos) / 1000000);
+    }
+
+    synchronized void count(String scope, String counter, long value) {
+        add(counters, scope, counter, value);
+    }
+
+    synchronized void setSuccess(boolean success) {
+        this.success = success;
+    }
+
+    synchronized long getPhase(String phase) {
+        long total = 0;
+
+        for (Map<String, Long> scopePhases : phases.values()) {
+            Long value = scopePhases.get(phase);
+
+            if (value != null) {
+                total += value;
+            }
+        }
+
+        return total;
+    }
+
+    synchronized long getCounter(String counter) {
+        long total = 0;
+
+        for (Map<String, Long> scopeCounters : counters.values()) {
+            Long value = scopeCounters.get(counter);
+
+            if (value != null) {
+                total += value;
+            }
+        }
+
+        return total;
+    }
+
+    synchronized String getSummary() {
+        Map<String, Long> totals = new LinkedHashMap<>();
+
+        for (Map<String, Long> scopePhases : phases.values()) {
+            for (String phase : scopePhases.keySet()) {
+                totals.put(phase, getPhase(phase));
+            }
+        }
+
+        StringBuilder builder = new StringBuilder();
+        builder.append(String.format("Docker metrics: total %d ms", getElapsed()));
+
+        if (!totals.isEmpty()) {
+            builder.append(" (");
+
+            String separator = "";
+            for (Map.Entry<String, Long> total : totals.entrySet()) {
+                builder.append(separator).append(total.getKey()).append(' ').append(total.getValue()).append(" ms");
+                separator = ", ";
+            }
+
+            builder.append(')');
+        }
+
+        builder.append(String.format(", %d files, %d bytes context", getCounter("contextFiles"),
+                getCounter("contextBytes")));
+
+        if (getCounter("bytesPushed") > 0) {
+            builder.append(String.format(", %d bytes pushed", getCounter("bytesPushed")));
+        }
+
+        return builder.toString();
+    }
+
+    synchronized void write(Path file) throws IOException {
+        Map<String, Object> document = new LinkedHashMap<>();
+        document.put("timestamp", timestamp);
+        document.put("success", success);
+        document.put("elapsed", getElapsed());
+
+        List<Map<String, Object>> scopes = new ArrayList<>();
+        List<String> names = new ArrayList<>(phases.keySet());
+
+        for (String name : counters.keySet()) {
+            if (!names.contains(name)) {
+                names.add(name);
+            }
+        }
+
+        for (String name : names) {
+            Map<String, Object> scope = new LinkedHashMap<>();
+            scope.put("name", name);
+            scope.put("phases", phases.containsKey(name) ? phases.get(name) : new LinkedHashMap<String, Long>());
+            scope.put("counters", counters.containsKey(name) ? counters.get(name) : new LinkedHashMap<String, Long>());
+
+            scopes.add(scope);
+        }
+
+        document.put("scopes", scopes);
+
+        Files.createDirectories(file.getParent());
+
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.enable(SerializationFeature.INDENT_OUTPUT);
+        mapper.writeValue(file.toFile(), document);
+    }
+
+    private long getElapsed() {
+        return (System.nanoTime() - start) / 1000000;
+    }
+
+    private static void add(Map<String, Map<String, Long>> values, String scope, String name, long value) {
+        Map<String, Long> scopeValues = values.get(scope);
+
+        if (scopeValues == null) {
+            scopeValues = new LinkedHashMap<>();
+            values.put(scope, scopeValues);
+        }
+
+        Long current = scopeValues.get(name);
+        scopeValues.put(name, current != null ? current + value : value);
+    }
+}
@@ -2,53 +2,79 @@ package fr.hbis.maven.plugins.docker;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.file.FileVisitResult;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.SimpleFileVisitor;
-import java.nio.file.StandardCopyOption;
-import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.Deflater;
+
+import org.apache.maven.RepositoryUtils;
+import org.apache.maven.artifact.Artifact;
 import org.apache.maven.execution.MavenSession;
 import org.apache.maven.model.Resource;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecution;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Component;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.DefaultDependencyResolutionRequest;
+import org.apache.maven.project.DependencyResolutionException;
+import org.apache.maven.project.DependencyResolutionRequest;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.project.ProjectDependenciesResolver;
 import org.apache.maven.settings.Settings;
-import org.codehaus.plexus.util.DirectoryScanner;
+import org.eclipse.aether.graph.Dependency;
+import org.eclipse.aether.util.artifact.JavaScopes;
+import org.eclipse.aether.util.filter.ScopeDependencyFilter;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.dockerjava.api.DockerClient;
 import com.github.dockerjava.api.command.BuildImageCmd;
-import com.github.dockerjava.api.command.PushImageCmd;
 import com.github.dockerjava.api.command.RemoveImageCmd;
+import com.github.dockerjava.api.exception.NotFoundException;
 import com.github.dockerjava.api.model.BuildResponseItem;
-import com.github.dockerjava.core.DefaultDockerClientConfig;
-import com.github.dockerjava.core.DockerClientBuilder;
-import com.github.dockerjava.core.DockerClientConfig;
+import com.github.dockerjava.api.model.ContainerConfig;
+import com.github.dockerjava.api.model.Image;
 import com.github.dockerjava.core.command.BuildImageResultCallback;
-import com.github.dockerjava.core.command.PushImageResultCallback;
 
 @Mojo(name = "build")
 public class BuildMojo extends AbstractMojo {
-    @Parameter(name = "${mojoExecution}", readonly = true)
+    private static final int BUILD_LOG_CAPACITY = 4096;
+
+    @Parameter(defaultValue = "${mojoExecution}", readonly = true)
     protected MojoExecution execution;
 
-    @Parameter(name = "${session}", readonly = true)
+    @Parameter(defaultValue = "${session}", readonly = true)
     protected MavenSession session;
 
-    @Parameter(name = "${settings}", readonly = true)
+    @Parameter(defaultValue = "${settings}", readonly = true)
     protected Settings settings;
 
+    @Parameter(defaultValue = "${project}", readonly = true)
+    protected MavenProject project;
+
+    @Component
+    private ProjectDependenciesResolver dependenciesResolver;
+
     @Parameter(property = "project.build.directory")
     protected File buildDirectory;
 
     @Parameter(property = "skipDocker", defaultValue = "false")
-    private boolean skipDocker;
+    protected boolean skipDocker;
 
     @Parameter(property = "directory")
     private File directory;
@@ -71,166 +97,714 @@ public class BuildMojo extends AbstractMojo {
     @Parameter(property = "push", defaultValue = "false")
     private boolean push;
     
+    @Parameter(property = "pushThreads", defaultValue = "4")
+    private int pushThreads;
+    
     @Parameter(property = "remove", defaultValue = "false")
     private boolean remove;
 
     @Parameter(property = "resources")
     private List<Resource> resources;
 
+    @Parameter(property = "streamContext", defaultValue = "false")
+    private boolean streamContext;
+
+    @Parameter(property = "compressContext", defaultValue = "false")
+    private boolean compressContext;
+
+    @Parameter(property = "compressionLevel", defaultValue = "6")
+    private int compressionLevel;
+
+    @Parameter(property = "compressionThreads", defaultValue = "0")
+    private int compressionThreads;
+
+    @Parameter(property = "compressionThreshold", defaultValue = "16777216")
+    private long compressionThreshold;
+
+    @Parameter(property = "stagingThreads", defaultValue = "0")
+    private int stagingThreads;
+
+    @Parameter(property = "stagingMode", defaultValue = "copy")
+    private String stagingMode;
+
+    @Parameter(property = "skipUnchanged", defaultValue = "false")
+    private boolean skipUnchanged;
+
+    @Parameter(property = "images")
+    private List<ImageDefinition> images;
+
+    @Parameter(property = "buildThreads", defaultValue = "2")
+    private int buildThreads;
+
+    @Parameter(property = "prePull", defaultValue = "false")
+    private boolean prePull;
+
+    @Parameter(property = "cacheFrom")
+    private List<String> cacheFrom;
+
+    @Parameter(property = "pullCacheFrom", defaultValue = "true")
+    private boolean pullCacheFrom;
+
+    @Parameter(property = "cacheDirectory")
+    private File cacheDirectory;
+
+    @Parameter(property = "buildLogVerbosity", defaultValue = "full")
+    private String buildLogVerbosity;
+
+    @Parameter(property = "maxConnections", defaultValue = "16")
+    protected int maxConnections;
+
+    @Parameter(property = "layered", defaultValue = "false")
+    private boolean layered;
+
+    @Parameter(property = "layerTargetPath", defaultValue = "/app")
+    private String layerTargetPath;
+
+    @Parameter(property = "reproducible", defaultValue = "false")
+    private boolean reproducible;
+
+    @Parameter(property = "deferRemove", defaultValue = "false")
+    private boolean deferRemove;
+
+    @Parameter(property = "maxImageSize")
+    private String maxImageSize;
+
+    @Parameter(property = "maxLayerSize")
+    private String maxLayerSize;
+
+    @Parameter(property = "maxImageGrowth", defaultValue = "0")
+    private int maxImageGrowth;
+
+    @Parameter(property = "sizeBudgetAction", defaultValue = "fail")
+    private String sizeBudgetAction;
+
+    @Parameter(property = "outputTimestamp", defaultValue = "${project.build.outputTimestamp}")
+    private String outputTimestamp;
+
+    private BuildMetrics metrics;
+    private Date timestamp;
+    private SizeBudget sizeBudget;
+
     public void execute() throws MojoExecutionException, MojoFailureException {
         if (skipDocker) {
             getLog().info("Skipping docker build");
             return;
         }
 
+        if (isDeferred()) {
+            getLog().info("Deferring docker build to the " + AggregateMojo.GOAL + " goal");
+            return;
+        }
+
         validateParameters();
-        
-        DockerClientConfig dockerClientConfig = DefaultDockerClientConfig.createDefaultConfigBuilder().build();
+
+        metrics = new BuildMetrics();
+
+        boolean sharedClient = false;
         DockerClient dockerClient = null;
 
         try {
-            dockerClient = DockerClientBuilder.getInstance(dockerClientConfig).build();
+            long start = System.nanoTime();
+            dockerClient = DockerClients.get(session, maxConnections, getLog());
+            sharedClient = dockerClient != null;
+
+            if (!sharedClient) {
+                dockerClient = DockerClients.create(maxConnections);
+            }
+
+            metrics.record(BuildMetrics.EXECUTION, "client", start);
+
+            List<ImageDefinition> definitions = getImageDefinitions();
+            build(dockerClient, definitions, definitions);
 
-            build(dockerClient);
+            metrics.setSuccess(true);
+        } catch (MojoFailureException e) {
+            throw e;
         } catch (Exception e) {
             throw new MojoExecutionException("Error during plugin execution", e);
         } finally {
-            if (dockerClient != null) {
-                try {
-                    dockerClient.close();
-                } catch (IOException e) {
+            if (!sharedClient) {
+                DockerClients.close(dockerClient);
+            }
+
+            writeMetrics();
+        }
+    }
+
+    private void writeMetrics() {
+        getLog().info(metrics.getSummary());
+
+        try {
+            metrics.write(Paths.get(buildDirectory.toString(), "docker-metrics.json"));
+        } catch (IOException e) {
+            getLog().warn("Failed to write docker metrics: " + e.getMessage());
+        }
+    }
+
+    void rebuild(DockerClient dockerClient, List<ImageDefinition> definitions, Collection<ImageDefinition> selected)
+            throws Exception {
+        metrics = new BuildMetrics();
+
+        try {
+            build(dockerClient, definitions, selected);
+
+            metrics.setSuccess(true);
+        } finally {
+            writeMetrics();
+        }
+    }
+
+    boolean isDeferred() {
+        if (session == null || session.getGoals() == null || execution == null)
+            return false;
+
+        String pluginKey = execution.getGroupId() + ":" + execution.getArtifactId() + ":";
+        String goalPrefix = execution.getMojoDescriptor() != null
+                ? execution.getMojoDescriptor().getPluginDescriptor().getGoalPrefix() : null;
+
+        for (String goal : session.getGoals()) {
+            if (!goal.endsWith(":" + AggregateMojo.GOAL))
+                continue;
+
+            if (goal.equals(goalPrefix + ":" + AggregateMojo.GOAL) || goal.startsWith(pluginKey)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    void validateParameters() throws MojoExecutionException {
+        validateImages();
+
+        try {
+            StagingMode.valueOf(stagingMode.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new MojoExecutionException("invalid option 'stagingMode': " + stagingMode);
+        }
+
+        try {
+            BuildLogVerbosity.valueOf(buildLogVerbosity.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new MojoExecutionException("invalid option 'buildLogVerbosity': " + buildLogVerbosity);
+        }
+
+        try {
+            BudgetAction.valueOf(sizeBudgetAction.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new MojoExecutionException("invalid option 'sizeBudgetAction': " + sizeBudgetAction);
+        }
+
+        sizeBudget = new SizeBudget(parseSize("maxImageSize", maxImageSize), parseSize("maxLayerSize", maxLayerSize),
+                maxImageGrowth);
+
+        if (compressionLevel < Deflater.NO_COMPRESSION || compressionLevel > Deflater.BEST_COMPRESSION) {
+            throw new MojoExecutionException("invalid option 'compressionLevel': " + compressionLevel);
+        }
+
+        if (reproducible) {
+            try {
+                timestamp = OutputTimestamp.parse(outputTimestamp);
+            } catch (IllegalArgumentException e) {
+                throw new MojoExecutionException("invalid option 'outputTimestamp': " + outputTimestamp);
+            }
+
+            if (!streamContext && StagingMode.valueOf(stagingMode.toUpperCase(Locale.ROOT)) != StagingMode.COPY) {
+                getLog().warn("Staging mode '" + stagingMode + "' is ignored for reproducible builds, copying files");
+            }
+        }
+    }
+
+    private static long parseSize(String name, String value) throws MojoExecutionException {
+        if (value == null || value.trim().isEmpty())
+            return 0;
+
+        try {
+            return ImageSize.parse(value);
+        } catch (NumberFormatException e) {
+            throw new MojoExecutionException("invalid option '" + name + "': " + value);
+        }
+    }
+
+    void validateImages() throws MojoExecutionException {
+        if (images == null || images.isEmpty()) {
+            if (directory == null) {
+                throw new MojoExecutionException("missing option 'directory'");
+            }
+
+            if (imageName == null) {
+                throw new MojoExecutionException("missing option 'imageName'");
+            }
+        } else {
+            for (ImageDefinition image : images) {
+                if (image.getDirectory() == null) {
+                    throw new MojoExecutionException("missing option 'directory' in images");
+                }
+
+                if (image.getImageName() == null) {
+                    throw new MojoExecutionException("missing option 'imageName' in images");
                 }
             }
         }
     }
 
-    private void validateParameters() throws MojoExecutionException {
-        if (directory == null) {
-            throw new MojoExecutionException("missing option 'directory'");
+    List<ImageDefinition> getImageDefinitions() {
+        if (images == null || images.isEmpty()) {
+            return Collections.singletonList(new ImageDefinition(directory, imageName, imageTags, push, remove,
+                    resources, layered));
+        }
+
+        return images;
+    }
+
+    private void build(final DockerClient dockerClient, final List<ImageDefinition> definitions,
+            final Collection<ImageDefinition> selected) throws Exception {
+        final Map<ImageDefinition, String> imageIds = new ConcurrentHashMap<>();
+
+        final ImageScheduler scheduler = new ImageScheduler(definitions, buildThreads);
+        final List<String> cacheImages = cacheFrom != null ? cacheFrom : Collections.<String>emptyList();
+        final ImagePuller puller = prePull || (pullCacheFrom && !cacheImages.isEmpty())
+                ? new ImagePuller(dockerClient, buildPull, 4, getLog()) : null;
+        final ImageCache cache = cacheDirectory != null
+                ? new ImageCache(dockerClient, cacheDirectory.toPath(), getLog()) : null;
+        final ImageRemovals removals = deferRemove
+                ? DockerClients.getRemovals(session, dockerClient, maxConnections, getLog()) : null;
+
+        if (puller != null && pullCacheFrom) {
+            puller.start(cacheImages);
+        }
+
+        for (ImageDefinition definition : selected) {
+            if (!scheduler.getDependencies(definition).isEmpty()) {
+                getLog().info("Image " + definition + " depends on " + scheduler.getDependencies(definition));
+            }
+
+            if (puller != null && prePull) {
+                puller.start(scheduler.getExternalImages(definition));
+            }
         }
 
-        if (imageName == null) {
-            throw new MojoExecutionException("missing option 'imageName'");
+        try {
+            scheduler.run(new ImageScheduler.Task() {
+                @Override
+                public void run(ImageDefinition image) throws Exception {
+                    if (!selected.contains(image))
+                        return;
+
+                    imageIds.put(image, build(dockerClient, image, getStagingName(definitions, image), puller,
+                            cache, scheduler.getExternalImages(image),
+                            removals != null && image.isRemove() ? removals.getBuildId() : null));
+                }
+            });
+        } finally {
+            if (puller != null) {
+                puller.shutdown();
+            }
+        }
+
+        for (ImageDefinition definition : selected) {
+            if (definition.isRemove()) {
+                String imageId = imageIds.get(definition);
+
+                if (removals != null) {
+                    getLog().info("Scheduling removal of image " + definition + " at the end of the build");
+                    removals.add(imageId, definition.getImageName());
+
+                    continue;
+                }
+
+                getLog().info("Removing image " + definition + " ...");
+
+                long start = System.nanoTime();
+                RemoveImageCmd removeImageCmd = dockerClient.removeImageCmd(imageId);
+
+                removeImageCmd.withForce(true).exec();
+                metrics.record(definition.getImageName(), "remove", start);
+            }
         }
     }
 
-    private void build(DockerClient dockerClient) throws IOException {
-        getLog().info("Building image ...");
-        
-        Resource dockerResource = new Resource();
-        dockerResource.setDirectory(directory.toString());
-        resources.add(dockerResource);
+    private String build(DockerClient dockerClient, ImageDefinition image, String stagingName, ImagePuller puller,
+            ImageCache cache, List<String> baseImages, String buildId)
+            throws IOException, InterruptedException, MojoExecutionException, MojoFailureException {
+        getLog().info("Building image " + image + " ...");
 
-        Path buildPath = Paths.get(buildDirectory.toString(), "docker");
+        String scope = image.getImageName();
+        long start = System.nanoTime();
 
-        for (Resource resource : resources) {
-            List<String> includes = resource.getIncludes();
-            List<String> excludes = resource.getExcludes();
+        DockerIgnore dockerIgnore = DockerIgnore.load(image.getDirectory().toPath().resolve(DockerIgnore.FILENAME));
+        BuildContext context = collectContext(image.getContextResources(), dockerIgnore);
+        ProjectLayers layers = null;
 
-            DirectoryScanner scanner = new DirectoryScanner();
-            scanner.setBasedir(new File(resource.getDirectory()));
-            scanner.setIncludes(includes.isEmpty() ? null : includes.toArray(new String[includes.size()]));
-            scanner.setExcludes(excludes.isEmpty() ? null : excludes.toArray(new String[excludes.size()]));
-            scanner.scan();
+        if (image.isLayered()) {
+            MavenProject imageProject = image.getProject() != null ? image.getProject() : project;
 
-            String[] includedFiles = scanner.getIncludedFiles();
-            if (includedFiles.length == 0)
-                continue;
+            layers = new ProjectLayers(resolveArtifacts(imageProject),
+                    new File(imageProject.getBuild().getOutputDirectory()), layerTargetPath);
+            layers.addTo(context);
+        }
 
-            boolean copyDirectory = includes.isEmpty() && excludes.isEmpty() && (resource.getTargetPath() != null);
-            if (copyDirectory) {
-                Path source = Paths.get(resource.getDirectory());
-                Path destination = Paths.get(buildPath.toString(), resource.getTargetPath());
-
-                Files.createDirectories(destination);
-                Files.walkFileTree(source, new CopyDirectory(source, destination));
-            } else {
-                for (String file : includedFiles) {
-                    Path source = Paths.get(resource.getDirectory()).resolve(file);
-                    Path destination = Paths.get(buildPath.toString(),
-                            (resource.getTargetPath() == null ? "" : resource.getTargetPath())).resolve(file);
-
-                    Files.createDirectories(destination.getParent());
-                    Files.copy(source, destination, StandardCopyOption.REPLACE_EXISTING,
-                            StandardCopyOption.COPY_ATTRIBUTES);
+        metrics.record(scope, "scan", start);
+        metrics.count(scope, "contextFiles", context.getFileCount());
+        metrics.count(scope, "contextBytes", context.getByteCount());
+        metrics.count(scope, "contextIgnored", context.getIgnoredEntries());
+
+        if (context.getIgnoredEntries() > 0) {
+            getLog().info(String.format("Ignored %d entries matching %s", context.getIgnoredEntries(),
+                    DockerIgnore.FILENAME));
+        }
+
+        Path buildPath = Paths.get(buildDirectory.toString(), stagingName);
+        StagingManifest manifest = null;
+        boolean compress = compressContext && context.getByteCount() >= compressionThreshold;
+
+        if (!streamContext && !compress) {
+            start = System.nanoTime();
+            manifest = stageContext(buildPath, Paths.get(buildDirectory.toString(), stagingName + ".manifest"),
+                    context, scope);
+            metrics.record(scope, "stage", start);
+        }
+
+        if (layers != null) {
+            writeLayerInstructions(Paths.get(buildDirectory.toString(), stagingName + ".layers"), layers);
+        }
+
+        String fingerprint = null;
+        String imageId = null;
+
+        if (skipUnchanged) {
+            start = System.nanoTime();
+
+            if (buildPull) {
+                pullBaseImages(dockerClient, puller, baseImages);
+            }
+
+            ContextFingerprint contextFingerprint = new ContextFingerprint();
+            contextFingerprint.addEntries(context, manifest);
+            contextFingerprint.addOption("buildNoCache", buildNoCache);
+            contextFingerprint.addOption("buildPull", buildPull);
+
+            for (String baseImage : Dockerfiles.getBaseImages(image.getDirectory().toPath().resolve("Dockerfile"))) {
+                contextFingerprint.addBaseImage(baseImage, resolveImage(dockerClient, baseImage));
+            }
+
+            if (timestamp != null) {
+                contextFingerprint.addOption("timestamp", timestamp.getTime());
+            }
+
+            fingerprint = contextFingerprint.compute();
+            imageId = findImage(dockerClient, fingerprint);
+
+            metrics.record(scope, "fingerprint", start);
+        }
+
+        if (imageId != null) {
+            getLog().info("Image is up to date, skipping build (" + imageId + ")");
+        } else {
+            Set<String> cacheImages = new LinkedHashSet<>();
+
+            if (puller != null) {
+                start = System.nanoTime();
+                puller.await(baseImages);
+
+                if (cacheFrom != null) {
+                    puller.await(cacheFrom);
+                }
+
+                metrics.record(scope, "pull", start);
+            }
+
+            if (cacheFrom != null) {
+                cacheImages.addAll(cacheFrom);
+            }
+
+            if (cache != null) {
+                start = System.nanoTime();
+                String cacheTag = image.getEffectiveTags().get(0);
+
+                if (cache.load(image.getImageName(), cacheTag)) {
+                    cacheImages.add(image.getImageName() + ":" + cacheTag);
                 }
+
+                metrics.record(scope, "cacheLoad", start);
             }
+
+            start = System.nanoTime();
+            imageId = buildImage(dockerClient, context, buildPath, compress, fingerprint, buildId, cacheImages,
+                    scope);
+            metrics.record(scope, "build", start);
+        }
+
+        start = System.nanoTime();
+
+        for (String imageTag : image.getEffectiveTags()) {
+            dockerClient.tagImageCmd(imageId, image.getImageName(), imageTag).exec();
         }
-        
+
+        metrics.record(scope, "tag", start);
+
+        if (sizeBudget.isEnabled()) {
+            checkImageSize(dockerClient, imageId, Paths.get(buildDirectory.toString(), stagingName + ".size.json"),
+                    scope);
+        }
+
+        if (cache != null) {
+            start = System.nanoTime();
+
+            if (cache.save(imageId, image.getImageName(), image.getEffectiveTags().get(0))) {
+                metrics.record(scope, "cacheSave", start);
+            }
+        }
+
+        if (image.isPush()) {
+            getLog().info("Pushing image " + image + " ...");
+
+            start = System.nanoTime();
+
+            ImagePusher pusher = new ImagePusher(dockerClient, pushThreads, getLog());
+            long bytesPushed = pusher.push(image.getImageName(), image.getEffectiveTags());
+
+            metrics.record(scope, "push", start);
+            metrics.count(scope, "bytesPushed", bytesPushed);
+        }
+
+        return imageId;
+    }
+
+    private void checkImageSize(DockerClient dockerClient, String imageId, Path sizePath, String scope)
+            throws IOException, MojoFailureException {
+        long start = System.nanoTime();
+
+        ImageSize previous = ImageSize.read(sizePath);
+        ImageSize current = ImageSize.inspect(dockerClient, imageId);
+        ImageSize.Layer largest = current.getLargestLayer();
+
+        metrics.record(scope, "size", start);
+        metrics.count(scope, "imageSize", current.getSize());
+        metrics.count(scope, "imageLayers", current.getLayers().size());
+
+        getLog().info(String.format("Image size: %s (%d layers%s)", ImageSize.format(current.getSize()),
+                current.getLayers().size(), largest == null ? ""
+                        : ", largest " + ImageSize.format(largest.getSize()) + ": " + largest.getCreatedBy()));
+
+        List<String> violations = sizeBudget.check(current, previous);
+
+        for (String violation : violations) {
+            getLog().warn("Size budget exceeded: " + violation);
+        }
+
+        if (!violations.isEmpty()
+                && BudgetAction.valueOf(sizeBudgetAction.toUpperCase(Locale.ROOT)) == BudgetAction.FAIL) {
+            throw new MojoFailureException("size budget exceeded for image " + scope + ": " + violations.get(0));
+        }
+
+        current.write(sizePath);
+    }
+
+    private Collection<Artifact> resolveArtifacts(MavenProject imageProject) throws MojoExecutionException {
+        DependencyResolutionRequest request = new DefaultDependencyResolutionRequest(imageProject,
+                session.getRepositorySession());
+        request.setResolutionFilter(
+                new ScopeDependencyFilter(Arrays.asList(JavaScopes.COMPILE, JavaScopes.RUNTIME), null));
+
+        List<Artifact> artifacts = new ArrayList<>();
+
+        try {
+            for (Dependency dependency : dependenciesResolver.resolve(request).getDependencies()) {
+                Artifact artifact = RepositoryUtils.toArtifact(dependency.getArtifact());
+                artifact.setScope(dependency.getScope());
+
+                artifacts.add(artifact);
+            }
+        } catch (DependencyResolutionException e) {
+            throw new MojoExecutionException("Failed to resolve the dependencies of " + imageProject.getId(), e);
+        }
+
+        return artifacts;
+    }
+
+    private void writeLayerInstructions(Path file, ProjectLayers layers) throws IOException {
+        List<String> instructions = layers.getInstructions();
+
+        Files.createDirectories(file.getParent());
+        Files.write(file, instructions, StandardCharsets.UTF_8);
+
+        getLog().info(String.format("Project layers: %d dependencies, %d snapshot dependencies, %d resources, "
+                + "%d classes", layers.getFileCount(ProjectLayers.DEPENDENCIES),
+                layers.getFileCount(ProjectLayers.SNAPSHOT_DEPENDENCIES),
+                layers.getFileCount(ProjectLayers.RESOURCES), layers.getFileCount(ProjectLayers.CLASSES)));
+
+        for (String instruction : instructions) {
+            getLog().info("  " + instruction);
+        }
+    }
+
+    private static String getStagingName(List<ImageDefinition> definitions, ImageDefinition image) {
+        if (definitions.size() == 1) {
+            return "docker";
+        }
+
+        return "docker-" + image.getImageName().replaceAll("[^A-Za-z0-9._-]", "_");
+    }
+
+    private String buildImage(DockerClient dockerClient, BuildContext context, Path buildPath, boolean compress,
+            String fingerprint, String buildId, Set<String> cacheImages, String scope) throws IOException {
+        long start = System.nanoTime();
+        BuildImageCmd buildCmd;
+        ContextArchive archive = null;
+
+        if (compress) {
+            getLog().info(String.format("Streaming compressed build context: %d entries (level %d)", context.size(),
+                    compressionLevel));
+
+            archive = new ContextArchive(context, timestamp);
+            archive.setCompression(compressionLevel, compressionThreads);
+            buildCmd = dockerClient.buildImageCmd(archive.stream());
+        } else if (streamContext) {
+            getLog().info(String.format("Streaming build context: %d entries", context.size()));
+
+            archive = new ContextArchive(context, timestamp);
+            buildCmd = dockerClient.buildImageCmd(archive.stream());
+        } else {
+            buildCmd = dockerClient.buildImageCmd(buildPath.toFile());
+        }
+
+        Map<String, String> labels = new LinkedHashMap<>();
+        labels.put(ImageRemovals.LABEL, scope);
+
+        if (fingerprint != null) {
+            labels.put(ContextFingerprint.LABEL, fingerprint);
+        }
+
+        if (buildId != null) {
+            labels.put(ImageRemovals.BUILD_LABEL, buildId);
+        }
+
+        buildCmd.withLabels(labels);
+
+        if (!cacheImages.isEmpty()) {
+            buildCmd.withCacheFrom(Collections.singleton(new ObjectMapper().writeValueAsString(cacheImages)));
+        }
+
+        final BuildLogger buildLogger = new BuildLogger(getLog(),
+                BuildLogVerbosity.valueOf(buildLogVerbosity.toUpperCase(Locale.ROOT)), BUILD_LOG_CAPACITY);
+
         BuildImageResultCallback callback = new BuildImageResultCallback() {
             @Override
             public void onNext(BuildResponseItem item) {
                 if (item.getStream() != null) {
-                    getLog().info(item.getStream().trim());
+                    buildLogger.stream(item.getStream());
+                }
+
+                if (item.isErrorIndicated()) {
+                    buildLogger.error(item.getError() != null ? item.getError() : item.getErrorDetail().getMessage());
                 }
 
                 super.onNext(item);
             }
         };
-        
-        BuildImageCmd buildCmd = dockerClient.buildImageCmd(buildPath.toFile());
-        
-        String imageId = buildCmd.withForcerm(buildForceRm).withNoCache(buildNoCache).withPull(buildPull).exec(callback).awaitImageId();
 
-        if (imageTags.isEmpty()) {
-            dockerClient.tagImageCmd(imageId, imageName, "latest").exec();
-        } else {
-            for (String imageTag : imageTags) {
-                dockerClient.tagImageCmd(imageId, imageName, imageTag).exec();
-            }
-        }
-        
-        if (push) {
-            getLog().info("Pushing image ...");
-            
-            if (imageTags.isEmpty()) {
-                PushImageCmd pushImageCmd = dockerClient.pushImageCmd(imageName);
-                
-                pushImageCmd.withTag("latest").exec(new PushImageResultCallback()).awaitSuccess();
-            } else {
-                for (String imageTag : imageTags) {
-                    PushImageCmd pushImageCmd = dockerClient.pushImageCmd(imageName);
-                    
-                    pushImageCmd.withTag(imageTag).exec(new PushImageResultCallback()).awaitSuccess();
-                }
+        String imageId;
+
+        try {
+            imageId = buildCmd.withForcerm(buildForceRm).withNoCache(buildNoCache).withPull(buildPull).exec(callback)
+                    .awaitImageId();
+        } catch (RuntimeException e) {
+            if (archive != null) {
+                archive.cancel();
+                archive.await();
             }
+
+            throw e;
+        } finally {
+            buildLogger.close();
         }
-        
-        if (remove) {
-            getLog().info("Removing image ...");
-            
-            RemoveImageCmd removeImageCmd = dockerClient.removeImageCmd(imageId);
-            
-            removeImageCmd.withForce(true).exec();
+
+        if (archive != null) {
+            archive.await();
+
+            metrics.count(scope, "uploadMillis", (archive.getFinishTime() - start) / 1000000);
+            metrics.count(scope, "uploadBytes", archive.getBytesWritten());
+
+            if (compress) {
+                metrics.count(scope, "uploadCompressedBytes", archive.getCompressedBytes());
+            }
         }
+
+        metrics.count(scope, "buildSteps", buildLogger.getSteps().size());
+
+        return imageId;
     }
 
-    private static class CopyDirectory extends SimpleFileVisitor<Path> {
-        private Path sourcePath;
-        private Path destinationPath;
+    private void pullBaseImages(DockerClient dockerClient, ImagePuller puller, List<String> baseImages)
+            throws InterruptedException {
+        ImagePuller basePuller = puller != null ? puller : new ImagePuller(dockerClient, true, 4, getLog());
 
-        public CopyDirectory(Path sourcePath, Path destinationPath) {
-            this.sourcePath = sourcePath;
-            this.destinationPath = destinationPath;
+        try {
+            basePuller.start(baseImages);
+            basePuller.await(baseImages);
+        } finally {
+            if (basePuller != puller) {
+                basePuller.shutdown();
+            }
         }
+    }
 
-        @Override
-        public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
-            Path target = destinationPath.resolve(sourcePath.relativize(dir));
+    private static String resolveImage(DockerClient dockerClient, String image) {
+        try {
+            return dockerClient.inspectImageCmd(image).exec().getId();
+        } catch (NotFoundException e) {
+            return null;
+        }
+    }
 
-            if (Files.notExists(target)) {
-                Files.createDirectories(destinationPath.resolve(sourcePath.relativize(dir)));
-            }
+    private static String findImage(DockerClient dockerClient, String fingerprint) {
+        List<Image> images = dockerClient.listImagesCmd()
+                .withLabelFilter(ContextFingerprint.LABEL + "=" + fingerprint).exec();
 
-            return FileVisitResult.CONTINUE;
+        for (Image image : images) {
+            ContainerConfig config = dockerClient.inspectImageCmd(image.getId()).exec().getConfig();
+
+            if (config != null && config.getLabels() != null
+                    && fingerprint.equals(config.getLabels().get(ContextFingerprint.LABEL))) {
+                return image.getId();
+            }
         }
 
-        @Override
-        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
-            Files.copy(file, destinationPath.resolve(sourcePath.relativize(file)), StandardCopyOption.REPLACE_EXISTING,
-                    StandardCopyOption.COPY_ATTRIBUTES);
+        return null;
+    }
+
+    private StagingManifest stageContext(Path buildPath, Path manifestPath, BuildContext context, String scope)
+            throws IOException {
+        StagingManifest manifest = new StagingManifest(manifestPath, buildPath);
+        manifest.load();
+
+        ContextStager stager = new ContextStager(buildPath, manifest,
+                StagingMode.valueOf(stagingMode.toUpperCase(Locale.ROOT)), stagingThreads, timestamp);
+        stager.stage(context);
+
+        manifest.save();
 
-            return FileVisitResult.CONTINUE;
+        getLog().info(String.format("Staged build context: %d copied (%d linked), %d unchanged, %d removed",
+                manifest.getCopiedFiles(), stager.getLinkedFiles(), manifest.getSkippedFiles(),
+                manifest.getRemovedFiles()));
+
+        metrics.count(scope, "filesCopied", manifest.getCopiedFiles());
+        metrics.count(scope, "filesLinked", stager.getLinkedFiles());
+        metrics.count(scope, "filesUnchanged", manifest.getSkippedFiles());
+        metrics.count(scope, "filesRemoved", manifest.getRemovedFiles());
+
+        return manifest;
+    }
+
+    private static BuildContext collectContext(List<Resource> resources, DockerIgnore dockerIgnore)
+            throws IOException {
+        BuildContext context = new BuildContext(dockerIgnore);
+
+        for (Resource resource : resources) {
+            ContextScanner.scan(resource, context);
         }
+
+        return context;
     }
 }
@@ -0,0 +1,211 @@
+package fr.hbis.maven.plugins.docker;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.zip.Deflater;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+
+class ContextArchive {
+    private static final int PIPE_SIZE = 1024 * 1024;
+    private static final int DIRECTORY_MODE = 040755;
+    private static final int FILE_MODE = 0100644;
+    private static final int EXECUTABLE_MODE = 0100755;
+    private static final Set<String> COMPRESSED_EXTENSIONS = new HashSet<>(Arrays.asList("jar", "war", "ear", "zip",
+            "gz", "tgz", "bz2", "xz", "zst", "7z", "png", "jpg", "jpeg", "gif", "webp", "woff", "woff2", "mp4"));
+
+    private final BuildContext context;
+    private final Date timestamp;
+
+    private int compressionLevel = -1;
+    private int compressionThreads;
+
+    private PipedInputStream input;
+    private Thread writerThread;
+    private volatile boolean cancelled;
+    private volatile IOException writerException;
+    private volatile long bytesWritten;
+    private volatile long compressedBytes;
+    private volatile long finishTime;
+
+    ContextArchive(BuildContext context) {
+        this(context, null);
+    }
+
+    ContextArchive(BuildContext context, Date timestamp) {
+        this.context = context;
+        this.timestamp = timestamp;
+    }
+
+    void setCompression(int level, int threads) {
+        this.compressionLevel = level;
+        this.compressionThreads = threads;
+    }
+
+    void write(OutputStream output) throws IOException {
+        ParallelGzipOutputStream gzip = compressionLevel >= 0
+                ? new ParallelGzipOutputStream(output, compressionLevel, compressionThreads) : null;
+
+        try {
+            TarArchiveOutputStream tar = new TarArchiveOutputStream(gzip != null ? gzip : output);
+            tar.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
+            tar.setBigNumberMode(TarArchiveOutputStream.BIGNUMBER_POSIX);
+
+            Map<String, Path> entries = timestamp != null ? new TreeMap<>(context.getEntries())
+                    : context.getEntries();
+
+            for (Map.Entry<String, Path> entry : entries.entrySet()) {
+                Path source = entry.getValue();
+
+                if (gzip != null) {
+                    gzip.setLevel(isCompressed(entry.getKey()) ? Deflater.NO_COMPRESSION : compressionLevel);
+                }
+
+                tar.putArchiveEntry(createEntry(entry.getKey(), source));
+
+                if (!Files.isDirectory(source)) {
+                    Files.copy(source, tar);
+                }
+
+                tar.closeArchiveEntry();
+            }
+
+            tar.finish();
+
+            if (gzip != null) {
+                gzip.finish();
+                compressedBytes = gzip.getCompressedBytes();
+            }
+
+            tar.flush();
+
+            bytesWritten = tar.getBytesWritten();
+            finishTime = System.nanoTime();
+        } finally {
+            if (gzip != null) {
+                gzip.abort();
+            }
+        }
+    }
+
+    private static boolean isCompressed(String name) {
+        int separator = name.lastIndexOf('.');
+
+        return separator > name.lastIndexOf('/')
+                && COMPRESSED_EXTENSIONS.contains(name.substring(separator + 1).toLowerCase(Locale.ROOT));
+    }
+
+    private TarArchiveEntry createEntry(String name, Path source) throws IOException {
+        boolean directory = Files.isDirectory(source);
+
+        if (timestamp == null) {
+            TarArchiveEntry entry = new TarArchiveEntry(source.toFile(), directory ? name + "/" : name);
+
+            if (!directory) {
+                entry.setMode(Files.isExecutable(source) ? EXECUTABLE_MODE : FILE_MODE);
+            }
+
+            return entry;
+        }
+
+        TarArchiveEntry entry = new TarArchiveEntry(directory ? name + "/" : name);
+
+        if (directory) {
+            entry.setMode(DIRECTORY_MODE);
+        } else {
+            entry.setMode(Files.isExecutable(source) ? EXECUTABLE_MODE : FILE_MODE);
+            entry.setSize(Files.size(source));
+        }
+
+        entry.setModTime(timestamp);
+        entry.setUserId(0);
+        entry.setGroupId(0);
+        entry.setUserName("");
+        entry.setGroupName("");
+
+        return entry;
+    }
+
+    long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    long getCompressedBytes() {
+        return compressedBytes;
+    }
+
+    long getFinishTime() {
+        return finishTime;
+    }
+
+    InputStream stream() throws IOException {
+        input = new PipedInputStream(PIPE_SIZE);
+        final PipedOutputStream output = new PipedOutputStream(input);
+
+        writerThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    write(output);
+                } catch (IOException e) {
+                    if (!cancelled) {
+                        writerException = e;
+                    }
+                } finally {
+                    try {
+                        output.close();
+                    } catch (IOException e) {
+                    }
+                }
+            }
+        }, "docker-context-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+
+        return input;
+    }
+
+    void cancel() {
+        cancelled = true;
+
+        if (input != null) {
+            try {
+                input.close();
+            } catch (IOException e) {
+            }
+        }
+    }
+
+    void await() throws IOException {
+        if (writerThread != null) {
+            try {
+                writerThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+
+                throw new IOException("interrupted while writing build context", e);
+            }
+        }
+
+        if (writerException != null) {
+            throw writerException;
+        }
+
+        if (input != null) {
+            input.close();
+        }
+    }
+}
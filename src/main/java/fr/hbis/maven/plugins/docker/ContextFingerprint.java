@@ -0,0 +1,72 @@
+package fr.hbis.maven.plugins.docker;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.TreeMap;
+
+class ContextFingerprint {
+    static final String LABEL = "fr.hbis.maven.plugins.docker.fingerprint";
+
+    private final Map<String, String> entries = new TreeMap<>();
+    private final Map<String, String> options = new TreeMap<>();
+    private final Map<String, String> baseImages = new TreeMap<>();
+
+    void addEntries(BuildContext context, StagingManifest manifest) throws IOException {
+        for (Map.Entry<String, Path> entry : context.getEntries().entrySet()) {
+            Path source = entry.getValue();
+            String hash = null;
+
+            if (Files.isDirectory(source)) {
+                hash = "-";
+            } else if (manifest != null) {
+                hash = manifest.getHash(entry.getKey());
+            }
+
+            entries.put(entry.getKey(), hash != null ? hash : StagingManifest.hash(source));
+        }
+    }
+
+    void addOption(String name, Object value) {
+        options.put(name, String.valueOf(value));
+    }
+
+    void addBaseImage(String image, String imageId) {
+        baseImages.put(image, imageId != null ? imageId : "-");
+    }
+
+    String compute() throws IOException {
+        MessageDigest digest;
+
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+
+        for (Map.Entry<String, String> option : options.entrySet()) {
+            digest.update((option.getKey() + "=" + option.getValue() + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+
+        for (Map.Entry<String, String> baseImage : baseImages.entrySet()) {
+            digest.update(("FROM " + baseImage.getKey() + "@" + baseImage.getValue() + "\n")
+                    .getBytes(StandardCharsets.UTF_8));
+        }
+
+        for (Map.Entry<String, String> entry : entries.entrySet()) {
+            digest.update((entry.getKey() + "\t" + entry.getValue() + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+
+        StringBuilder builder = new StringBuilder();
+
+        for (byte b : digest.digest()) {
+            builder.append(String.format("%02x", b));
+        }
+
+        return builder.toString();
+    }
+}
@@ -0,0 +1,116 @@
+package fr.hbis.maven.plugins.docker;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystemLoopException;
+import java.nio.file.FileVisitOption;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+import org.apache.maven.model.Resource;
+import org.codehaus.plexus.util.MatchPatterns;
+
+class ContextScanner {
+    private static final String[] DEFAULT_INCLUDES = { "**" };
+
+    private ContextScanner() {
+    }
+
+    static void scan(Resource resource, BuildContext context) throws IOException {
+        Path source = Paths.get(resource.getDirectory());
+        if (!Files.isDirectory(source))
+            return;
+
+        List<String> includes = resource.getIncludes();
+        List<String> excludes = resource.getExcludes();
+        boolean copyDirectory = includes.isEmpty() && excludes.isEmpty() && (resource.getTargetPath() != null);
+
+        Files.walkFileTree(source, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE,
+                new ResourceVisitor(source, resource.getTargetPath(),
+                        MatchPatterns.from(includes.isEmpty() ? DEFAULT_INCLUDES : normalize(includes)),
+                        MatchPatterns.from(normalize(excludes)), copyDirectory, context));
+    }
+
+    private static String[] normalize(List<String> patterns) {
+        List<String> normalized = new ArrayList<>(patterns.size());
+
+        for (String pattern : patterns) {
+            String value = pattern.trim().replace('/', File.separatorChar).replace('\\', File.separatorChar);
+
+            if (value.endsWith(File.separator)) {
+                value += "**";
+            }
+
+            normalized.add(value);
+        }
+
+        return normalized.toArray(new String[normalized.size()]);
+    }
+
+    private static class ResourceVisitor extends SimpleFileVisitor<Path> {
+        private final Path sourcePath;
+        private final String targetPath;
+        private final MatchPatterns includes;
+        private final MatchPatterns excludes;
+        private final boolean copyDirectory;
+        private final BuildContext context;
+
+        ResourceVisitor(Path sourcePath, String targetPath, MatchPatterns includes, MatchPatterns excludes,
+                boolean copyDirectory, BuildContext context) {
+            this.sourcePath = sourcePath;
+            this.targetPath = targetPath;
+            this.includes = includes;
+            this.excludes = excludes;
+            this.copyDirectory = copyDirectory;
+            this.context = context;
+        }
+
+        @Override
+        public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+            String name = sourcePath.relativize(dir).toString();
+            if (name.isEmpty())
+                return FileVisitResult.CONTINUE;
+
+            if (!includes.matches(name, true) && !includes.matchesPatternStart(name, true)) {
+                return FileVisitResult.SKIP_SUBTREE;
+            }
+
+            if (context.isPrunable(targetPath, name)) {
+                return FileVisitResult.SKIP_SUBTREE;
+            }
+
+            if (copyDirectory) {
+                context.add(targetPath, name, dir);
+            }
+
+            return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+            String name = sourcePath.relativize(file).toString();
+
+            if (attrs.isRegularFile() && includes.matches(name, true) && !excludes.matches(name, true)) {
+                context.add(targetPath, name, file, attrs.size());
+            }
+
+            return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult visitFileFailed(Path file, IOException exc) throws IOException {
+            if (exc instanceof FileSystemLoopException) {
+                return FileVisitResult.SKIP_SUBTREE;
+            }
+
+            throw exc;
+        }
+    }
+}
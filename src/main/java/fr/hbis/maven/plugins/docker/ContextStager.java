@@ -0,0 +1,280 @@
+package fr.hbis.maven.plugins.docker;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class ContextStager implements StagingManifest.Transfer {
+    private static final long TRANSFER_THRESHOLD = 1024 * 1024;
+    private static final Set<PosixFilePermission> DIRECTORY_PERMISSIONS = PosixFilePermissions
+            .fromString("rwxr-xr-x");
+    private static final Set<PosixFilePermission> FILE_PERMISSIONS = PosixFilePermissions.fromString("rw-r--r--");
+
+    private final Path stagingPath;
+    private final StagingManifest manifest;
+    private final StagingMode mode;
+    private final int threads;
+    private final FileTime timestamp;
+    private final Map<Path, Boolean> linkableDirectories = new ConcurrentHashMap<>();
+    private final AtomicInteger linkedFiles = new AtomicInteger();
+
+    private FileStore stagingStore;
+
+    ContextStager(Path stagingPath, StagingManifest manifest, StagingMode mode, int threads) {
+        this(stagingPath, manifest, mode, threads, null);
+    }
+
+    ContextStager(Path stagingPath, StagingManifest manifest, StagingMode mode, int threads, Date timestamp) {
+        this.stagingPath = stagingPath;
+        this.manifest = manifest;
+        this.mode = mode;
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.timestamp = timestamp != null ? FileTime.fromMillis(timestamp.getTime()) : null;
+    }
+
+    void stage(BuildContext context) throws IOException {
+        Set<Path> directories = new TreeSet<>();
+        Set<String> keys = new HashSet<>();
+        List<Path[]> files = new ArrayList<>();
+
+        directories.add(stagingPath);
+
+        for (Map.Entry<String, Path> entry : context.getEntries().entrySet()) {
+            Path source = entry.getValue();
+            Path destination = stagingPath.resolve(entry.getKey());
+
+            if (Files.isDirectory(source)) {
+                directories.add(destination);
+            } else {
+                directories.add(destination.getParent());
+                keys.add(stagingPath.relativize(destination).toString());
+                files.add(new Path[] { source, destination });
+            }
+        }
+
+        manifest.removeStaleFiles(keys);
+        createDirectories(directories);
+
+        if (mode == StagingMode.AUTO) {
+            stagingStore = Files.getFileStore(stagingPath);
+        }
+
+        if (threads == 1 || files.size() < 2) {
+            for (Path[] file : files) {
+                manifest.stage(file[0], file[1], ContextStager.this);
+            }
+        } else {
+            stage(files);
+        }
+
+        if (timestamp != null) {
+            normalize(directories, files);
+        }
+    }
+
+    private void stage(List<Path[]> files) throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, files.size()));
+
+        try {
+            List<Future<Void>> futures = new ArrayList<>(files.size());
+
+            for (final Path[] file : files) {
+                futures.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        manifest.stage(file[0], file[1], ContextStager.this);
+
+                        return null;
+                    }
+                }));
+            }
+
+            for (Future<Void> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof IOException) {
+                        throw (IOException) e.getCause();
+                    }
+
+                    throw new IOException(e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+
+                    throw new IOException("interrupted while staging build context", e);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    int getLinkedFiles() {
+        return linkedFiles.get();
+    }
+
+    @Override
+    public void transfer(Path source, Path destination) throws IOException {
+        if (timestamp == null
+                && (mode == StagingMode.HARDLINK || (mode == StagingMode.AUTO && isLinkable(source)))) {
+            Files.deleteIfExists(destination);
+
+            try {
+                Files.createLink(destination, source);
+                linkedFiles.incrementAndGet();
+
+                return;
+            } catch (IOException | UnsupportedOperationException e) {
+                if (mode == StagingMode.AUTO) {
+                    linkableDirectories.put(source.getParent(), Boolean.FALSE);
+                }
+            }
+        }
+
+        copy(source, destination);
+    }
+
+    private boolean isLinkable(Path source) throws IOException {
+        Path directory = source.getParent();
+        Boolean linkable = linkableDirectories.get(directory);
+
+        if (linkable == null) {
+            linkable = Files.getFileStore(directory).equals(stagingStore);
+            linkableDirectories.put(directory, linkable);
+        }
+
+        return linkable;
+    }
+
+    private void normalize(Set<Path> directories, List<Path[]> files) throws IOException {
+        boolean posix = Files.getFileAttributeView(stagingPath, PosixFileAttributeView.class) != null;
+
+        for (Path[] file : files) {
+            if (isLinked(file[1])) {
+                Files.delete(file[1]);
+                copy(file[0], file[1]);
+            }
+
+            if (posix) {
+                Set<PosixFilePermission> permissions = new HashSet<>(FILE_PERMISSIONS);
+
+                if (Files.isExecutable(file[0])) {
+                    permissions.add(PosixFilePermission.OWNER_EXECUTE);
+                    permissions.add(PosixFilePermission.GROUP_EXECUTE);
+                    permissions.add(PosixFilePermission.OTHERS_EXECUTE);
+                }
+
+                Files.setPosixFilePermissions(file[1], permissions);
+            }
+
+            Files.setLastModifiedTime(file[1], timestamp);
+        }
+
+        Set<Path> parents = new TreeSet<>();
+
+        for (Path directory : directories) {
+            Path parent = directory;
+
+            while (parent != null && parent.startsWith(stagingPath)) {
+                parents.add(parent);
+                parent = parent.getParent();
+            }
+        }
+
+        for (Path directory : parents) {
+            if (posix) {
+                Files.setPosixFilePermissions(directory, DIRECTORY_PERMISSIONS);
+            }
+
+            Files.setLastModifiedTime(directory, timestamp);
+        }
+    }
+
+    private static boolean isLinked(Path file) throws IOException {
+        try {
+            return ((Number) Files.getAttribute(file, "unix:nlink")).intValue() > 1;
+        } catch (UnsupportedOperationException | IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static void createDirectories(Set<Path> directories) throws IOException {
+        Set<Path> created = new HashSet<>();
+
+        for (Path directory : directories) {
+            if (created.contains(directory.getParent())) {
+                try {
+                    Files.createDirectory(directory);
+                } catch (FileAlreadyExistsException e) {
+                    if (!Files.isDirectory(directory)) {
+                        throw e;
+                    }
+                }
+            } else {
+                Files.createDirectories(directory);
+            }
+
+            created.add(directory);
+        }
+    }
+
+    private static void copy(Path source, Path destination) throws IOException {
+        long size = Files.size(source);
+
+        if (size < TRANSFER_THRESHOLD) {
+            Files.copy(source, destination, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+
+            return;
+        }
+
+        Files.deleteIfExists(destination);
+
+        try (FileChannel input = FileChannel.open(source, StandardOpenOption.READ);
+                FileChannel output = FileChannel.open(destination, StandardOpenOption.CREATE_NEW,
+                        StandardOpenOption.WRITE)) {
+            long position = 0;
+
+            while (position < size) {
+                long count = input.transferTo(position, size - position, output);
+                if (count <= 0)
+                    break;
+
+                position += count;
+            }
+        }
+
+        PosixFileAttributeView view = Files.getFileAttributeView(destination, PosixFileAttributeView.class);
+
+        if (view != null) {
+            PosixFileAttributes attributes = Files.readAttributes(source, PosixFileAttributes.class);
+
+            view.setPermissions(attributes.permissions());
+        }
+
+        Files.setLastModifiedTime(destination, Files.getLastModifiedTime(source));
+    }
+}
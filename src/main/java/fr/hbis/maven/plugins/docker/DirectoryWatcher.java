@@ -0,0 +1,101 @@
+package fr.hbis.maven.plugins.docker;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+class DirectoryWatcher implements Closeable {
+    private final WatchService watchService;
+    private final Map<WatchKey, Path> directories = new ConcurrentHashMap<>();
+
+    DirectoryWatcher() throws IOException {
+        this.watchService = FileSystems.getDefault().newWatchService();
+    }
+
+    void register(Path root) throws IOException {
+        if (!Files.isDirectory(root))
+            return;
+
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                directories.put(dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY), dir);
+
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException exc) throws IOException {
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    int size() {
+        return directories.size();
+    }
+
+    Set<Path> await(long debounceMillis) throws IOException, InterruptedException {
+        Set<Path> changes = new LinkedHashSet<>();
+        WatchKey key;
+
+        try {
+            key = watchService.take();
+        } catch (ClosedWatchServiceException e) {
+            return changes;
+        }
+
+        while (key != null) {
+            Path directory = directories.get(key);
+
+            for (WatchEvent<?> event : key.pollEvents()) {
+                if (directory == null)
+                    continue;
+
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    changes.add(directory);
+
+                    continue;
+                }
+
+                Path path = directory.resolve((Path) event.context());
+                changes.add(path);
+
+                if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE
+                        && Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+                    register(path);
+                }
+            }
+
+            if (!key.reset()) {
+                directories.remove(key);
+            }
+
+            key = watchService.poll(debounceMillis, TimeUnit.MILLISECONDS);
+        }
+
+        return changes;
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+    }
+}
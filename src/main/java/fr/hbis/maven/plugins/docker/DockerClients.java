@@ -0,0 +1,117 @@
+package fr.hbis.maven.plugins.docker;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import org.apache.maven.execution.MavenExecutionRequest;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.logging.Log;
+
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.core.DefaultDockerClientConfig;
+import com.github.dockerjava.core.DockerClientBuilder;
+import com.github.dockerjava.core.DockerClientConfig;
+import com.github.dockerjava.jaxrs.JerseyDockerCmdExecFactory;
+
+class DockerClients {
+    private static final Set<MavenExecutionRequest> SESSIONS = Collections
+            .newSetFromMap(new IdentityHashMap<MavenExecutionRequest, Boolean>());
+    private static final Map<MavenExecutionRequest, DockerClient> CLIENTS = new IdentityHashMap<>();
+    private static final Map<MavenExecutionRequest, Integer> MAX_CONNECTIONS = new IdentityHashMap<>();
+    private static final Map<MavenExecutionRequest, ImageRemovals> REMOVALS = new IdentityHashMap<>();
+
+    private DockerClients() {
+    }
+
+    static DockerClient create(int maxConnections) {
+        DockerClientConfig dockerClientConfig = DefaultDockerClientConfig.createDefaultConfigBuilder().build();
+        JerseyDockerCmdExecFactory dockerCmdExecFactory = new JerseyDockerCmdExecFactory()
+                .withMaxTotalConnections(maxConnections).withMaxPerRouteConnections(maxConnections);
+
+        return DockerClientBuilder.getInstance(dockerClientConfig).withDockerCmdExecFactory(dockerCmdExecFactory)
+                .build();
+    }
+
+    static synchronized void open(MavenSession session) {
+        SESSIONS.add(session.getRequest());
+    }
+
+    static synchronized DockerClient get(MavenSession session, int maxConnections, Log log) {
+        if (session == null || !SESSIONS.contains(session.getRequest()))
+            return null;
+
+        MavenExecutionRequest request = session.getRequest();
+        DockerClient dockerClient = CLIENTS.get(request);
+
+        if (dockerClient == null) {
+            dockerClient = create(maxConnections);
+            CLIENTS.put(request, dockerClient);
+            MAX_CONNECTIONS.put(request, maxConnections);
+        } else if (MAX_CONNECTIONS.get(request) != maxConnections) {
+            log.warn(String.format("Ignoring maxConnections %d, the shared docker client uses %d", maxConnections,
+                    MAX_CONNECTIONS.get(request)));
+        }
+
+        return dockerClient;
+    }
+
+    static synchronized ImageRemovals getRemovals(MavenSession session, DockerClient dockerClient, int threads,
+            Log log) {
+        if (session == null)
+            return null;
+
+        MavenExecutionRequest request = session.getRequest();
+
+        if (CLIENTS.get(request) != dockerClient)
+            return null;
+
+        ImageRemovals removals = REMOVALS.get(request);
+
+        if (removals == null) {
+            removals = new ImageRemovals(UUID.randomUUID().toString(), threads, log);
+            REMOVALS.put(request, removals);
+        }
+
+        return removals;
+    }
+
+    static void close(MavenSession session) {
+        DockerClient dockerClient;
+        ImageRemovals removals;
+
+        synchronized (DockerClients.class) {
+            SESSIONS.remove(session.getRequest());
+            MAX_CONNECTIONS.remove(session.getRequest());
+            dockerClient = CLIENTS.remove(session.getRequest());
+            removals = REMOVALS.remove(session.getRequest());
+        }
+
+        remove(dockerClient, removals);
+        close(dockerClient);
+    }
+
+    private static void remove(DockerClient dockerClient, ImageRemovals removals) {
+        if (dockerClient != null && removals != null) {
+            try {
+                removals.remove(dockerClient);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (RuntimeException e) {
+                removals.getLog().warn("Failed to remove images: " + e.getMessage());
+            }
+        }
+    }
+
+    static void close(DockerClient dockerClient) {
+        if (dockerClient != null) {
+            try {
+                dockerClient.close();
+            } catch (IOException e) {
+            }
+        }
+    }
+}
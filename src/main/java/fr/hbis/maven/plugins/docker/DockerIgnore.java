@@ -0,0 +1,144 @@
+package fr.hbis.maven.plugins.docker;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+class DockerIgnore {
+    static final String FILENAME = ".dockerignore";
+
+    private final List<Rule> rules;
+    private final boolean exclusions;
+
+    DockerIgnore(List<String> patterns) {
+        List<Rule> parsedRules = new ArrayList<>();
+        boolean hasExclusions = false;
+
+        for (String line : patterns) {
+            String pattern = line.trim();
+            if (pattern.isEmpty() || pattern.startsWith("#"))
+                continue;
+
+            boolean exclusion = pattern.startsWith("!");
+            if (exclusion) {
+                pattern = pattern.substring(1).trim();
+                hasExclusions = true;
+            }
+
+            pattern = BuildContext.normalize(pattern);
+            if (pattern.isEmpty())
+                continue;
+
+            parsedRules.add(new Rule(compile(pattern), exclusion));
+        }
+
+        this.rules = Collections.unmodifiableList(parsedRules);
+        this.exclusions = hasExclusions;
+    }
+
+    static DockerIgnore load(Path file) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return new DockerIgnore(Collections.<String>emptyList());
+        }
+
+        return new DockerIgnore(Files.readAllLines(file, StandardCharsets.UTF_8));
+    }
+
+    boolean isIgnored(String path) {
+        if (rules.isEmpty() || path.equals("Dockerfile") || path.equals(FILENAME))
+            return false;
+
+        boolean ignored = false;
+
+        for (Rule rule : rules) {
+            if (rule.matches(path)) {
+                ignored = !rule.exclusion;
+            }
+        }
+
+        return ignored;
+    }
+
+    boolean isPrunable(String directory) {
+        return !exclusions && isIgnored(directory);
+    }
+
+    private static Pattern compile(String pattern) {
+        StringBuilder regex = new StringBuilder("^");
+
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+
+            if (c == '*') {
+                if (i + 1 < pattern.length() && pattern.charAt(i + 1) == '*') {
+                    i++;
+
+                    if (i + 1 < pattern.length() && pattern.charAt(i + 1) == '/') {
+                        i++;
+                        regex.append("(.*/)?");
+                    } else {
+                        regex.append(".*");
+                    }
+                } else {
+                    regex.append("[^/]*");
+                }
+            } else if (c == '?') {
+                regex.append("[^/]");
+            } else if (c == '[') {
+                int end = pattern.indexOf(']', i + 1);
+
+                if (end < 0) {
+                    regex.append("\\[");
+                } else {
+                    String range = pattern.substring(i + 1, end);
+
+                    if (range.startsWith("^") || range.startsWith("!")) {
+                        range = "^" + range.substring(1);
+                    }
+
+                    regex.append('[').append(range.replace("\\", "\\\\")).append(']');
+                    i = end;
+                }
+            } else if (c == '\\' && i + 1 < pattern.length()) {
+                regex.append(Pattern.quote(String.valueOf(pattern.charAt(++i))));
+            } else {
+                regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+
+        return Pattern.compile(regex.append("$").toString());
+    }
+
+    private static class Rule {
+        private final Pattern pattern;
+        private final boolean exclusion;
+
+        Rule(Pattern pattern, boolean exclusion) {
+            this.pattern = pattern;
+            this.exclusion = exclusion;
+        }
+
+        boolean matches(String path) {
+            if (pattern.matcher(path).matches())
+                return true;
+
+            int separator = path.lastIndexOf('/');
+
+            while (separator > 0) {
+                path = path.substring(0, separator);
+
+                if (pattern.matcher(path).matches())
+                    return true;
+
+                separator = path.lastIndexOf('/');
+            }
+
+            return false;
+        }
+    }
+}
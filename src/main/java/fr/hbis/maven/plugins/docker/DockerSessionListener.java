@@ -0,0 +1,17 @@
+package fr.hbis.maven.plugins.docker;
+
+import org.apache.maven.AbstractMavenLifecycleParticipant;
+import org.apache.maven.MavenExecutionException;
+import org.apache.maven.execution.MavenSession;
+
+public class DockerSessionListener extends AbstractMavenLifecycleParticipant {
+    @Override
+    public void afterProjectsRead(MavenSession session) throws MavenExecutionException {
+        DockerClients.open(session);
+    }
+
+    @Override
+    public void afterSessionEnd(MavenSession session) throws MavenExecutionException {
+        DockerClients.close(session);
+    }
+}
@@ -0,0 +1,77 @@
+package fr.hbis.maven.plugins.docker;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+class Dockerfiles {
+    private Dockerfiles() {
+    }
+
+    static List<String> getBaseImages(Path dockerfile) throws IOException {
+        List<String> images = new ArrayList<>();
+        if (!Files.isRegularFile(dockerfile))
+            return images;
+
+        Set<String> stages = new HashSet<>();
+
+        for (String instruction : readInstructions(dockerfile)) {
+            String[] tokens = instruction.trim().split("\\s+");
+            if (tokens.length < 2 || !tokens[0].equalsIgnoreCase("FROM"))
+                continue;
+
+            int index = 1;
+            while (index < tokens.length && tokens[index].startsWith("--")) {
+                index++;
+            }
+
+            if (index >= tokens.length)
+                continue;
+
+            String image = tokens[index];
+
+            if (!image.equalsIgnoreCase("scratch") && !image.contains("$")
+                    && !stages.contains(image.toLowerCase(Locale.ROOT)) && !images.contains(image)) {
+                images.add(image);
+            }
+
+            if (index + 2 < tokens.length && tokens[index + 1].equalsIgnoreCase("AS")) {
+                stages.add(tokens[index + 2].toLowerCase(Locale.ROOT));
+            }
+        }
+
+        return images;
+    }
+
+    private static List<String> readInstructions(Path dockerfile) throws IOException {
+        List<String> instructions = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+
+        for (String line : Files.readAllLines(dockerfile, StandardCharsets.UTF_8)) {
+            String trimmed = line.trim();
+            if (trimmed.startsWith("#"))
+                continue;
+
+            if (trimmed.endsWith("\\")) {
+                current.append(trimmed, 0, trimmed.length() - 1).append(' ');
+                continue;
+            }
+
+            current.append(trimmed);
+            instructions.add(current.toString());
+            current.setLength(0);
+        }
+
+        if (current.length() > 0) {
+            instructions.add(current.toString());
+        }
+
+        return instructions;
+    }
+}
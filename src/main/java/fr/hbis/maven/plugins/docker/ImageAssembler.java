@@ -0,0 +1,359 @@
+package fr.hbis.maven.plugins.docker;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.codehaus.plexus.util.FileUtils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+class ImageAssembler {
+    static final String MANIFEST_MEDIA_TYPE = "application/vnd.oci.image.manifest.v1+json";
+    static final String CONFIG_MEDIA_TYPE = "application/vnd.oci.image.config.v1+json";
+    static final String LAYER_MEDIA_TYPE = "application/vnd.oci.image.layer.v1.tar";
+    static final String GZIP_LAYER_MEDIA_TYPE = LAYER_MEDIA_TYPE + "+gzip";
+
+    private static final String HASH_ALGORITHM = "SHA-256";
+    private static final int BUFFER_SIZE = 65536;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final ObjectNode config;
+    private final List<ImageLayer> layers;
+    private final Path workDirectory;
+    private final Date timestamp;
+    private final String created;
+
+    ImageAssembler(BaseImage base, Path workDirectory) {
+        this(base, workDirectory, null);
+    }
+
+    ImageAssembler(BaseImage base, Path workDirectory, Date timestamp) {
+        this.config = base.getConfig().deepCopy();
+        this.layers = new ArrayList<>(base.getLayers());
+        this.workDirectory = workDirectory;
+        this.timestamp = timestamp;
+
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'");
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        this.created = format.format(timestamp != null ? timestamp : new Date());
+    }
+
+    ImageLayer addLayer(BuildContext context) throws IOException {
+        return addLayer(context, null);
+    }
+
+    ImageLayer addLayer(BuildContext context, LayerCache cache) throws IOException {
+        String key = cache != null && timestamp != null ? cache.getKey(context, timestamp) : null;
+        ImageLayer layer = key != null ? cache.get(key) : null;
+
+        if (layer == null) {
+            layer = createLayer(context);
+
+            if (key != null) {
+                layer = cache.put(key, layer);
+            }
+        }
+
+        layers.add(layer);
+
+        config.with("rootfs").put("type", "layers");
+        getArray(config.with("rootfs"), "diff_ids").add(layer.getDiffId());
+
+        if (config.has("history")) {
+            ObjectNode history = getArray(config, "history").addObject();
+            history.put("created", created);
+            history.put("created_by", "docker-maven-plugin:assemble");
+        }
+
+        return layer;
+    }
+
+    private ImageLayer createLayer(BuildContext context) throws IOException {
+        Files.createDirectories(workDirectory);
+
+        Path file = workDirectory.resolve("layer-" + layers.size() + ".tar.gz");
+        MessageDigest compressedDigest = newDigest();
+        MessageDigest uncompressedDigest = newDigest();
+
+        try (OutputStream output = new GZIPOutputStream(
+                new DigestOutputStream(new BufferedOutputStream(Files.newOutputStream(file), BUFFER_SIZE),
+                        compressedDigest),
+                BUFFER_SIZE)) {
+            new ContextArchive(context, timestamp).write(new DigestOutputStream(output, uncompressedDigest));
+        }
+
+        return new ImageLayer(file, true, toString(compressedDigest), toString(uncompressedDigest),
+                Files.size(file));
+    }
+
+    void setEntrypoint(List<String> entrypoint) {
+        setList("Entrypoint", entrypoint);
+        config.with("config").remove("Cmd");
+    }
+
+    void setCmd(List<String> cmd) {
+        setList("Cmd", cmd);
+    }
+
+    void setWorkingDir(String workingDir) {
+        config.with("config").put("WorkingDir", workingDir);
+    }
+
+    void setUser(String user) {
+        config.with("config").put("User", user);
+    }
+
+    void addEnvironment(Map<String, String> environment) {
+        Map<String, String> values = new LinkedHashMap<>();
+
+        for (JsonNode value : config.with("config").path("Env")) {
+            String text = value.asText();
+            int separator = text.indexOf('=');
+
+            values.put(separator < 0 ? text : text.substring(0, separator),
+                    separator < 0 ? "" : text.substring(separator + 1));
+        }
+
+        values.putAll(environment);
+
+        ArrayNode env = config.with("config").putArray("Env");
+
+        for (Map.Entry<String, String> value : values.entrySet()) {
+            env.add(value.getKey() + "=" + value.getValue());
+        }
+    }
+
+    void addLabels(Map<String, String> labels) {
+        ObjectNode values = config.with("config").with("Labels");
+
+        for (Map.Entry<String, String> label : labels.entrySet()) {
+            values.put(label.getKey(), label.getValue());
+        }
+    }
+
+    List<ImageLayer> getLayers() {
+        return layers;
+    }
+
+    String writeLayout(Path destination, String imageName, List<String> imageTags) throws IOException {
+        FileUtils.deleteDirectory(destination.toFile());
+
+        Path blobs = destination.resolve("blobs");
+        ObjectNode manifest = mapper.createObjectNode();
+        manifest.put("schemaVersion", 2);
+        manifest.put("mediaType", MANIFEST_MEDIA_TYPE);
+        manifest.set("config", writeBlob(blobs, CONFIG_MEDIA_TYPE, mapper.writeValueAsBytes(getConfig())));
+
+        ArrayNode layerDescriptors = manifest.putArray("layers");
+
+        for (ImageLayer layer : layers) {
+            Path blob = getBlob(blobs, layer.getDigest());
+
+            if (!Files.exists(blob)) {
+                Files.createDirectories(blob.getParent());
+                Files.copy(layer.getPath(), blob);
+            }
+
+            ObjectNode descriptor = layerDescriptors.addObject();
+            descriptor.put("mediaType", layer.isCompressed() ? GZIP_LAYER_MEDIA_TYPE : LAYER_MEDIA_TYPE);
+            descriptor.put("digest", layer.getDigest());
+            descriptor.put("size", layer.getSize());
+        }
+
+        ObjectNode manifestDescriptor = writeBlob(blobs, MANIFEST_MEDIA_TYPE, mapper.writeValueAsBytes(manifest));
+
+        ObjectNode index = mapper.createObjectNode();
+        index.put("schemaVersion", 2);
+
+        ArrayNode manifests = index.putArray("manifests");
+
+        for (String imageTag : imageTags) {
+            ObjectNode descriptor = manifests.addObject();
+            descriptor.setAll(manifestDescriptor);
+
+            ObjectNode annotations = descriptor.putObject("annotations");
+            annotations.put("io.containerd.image.name", imageName + ":" + imageTag);
+            annotations.put("org.opencontainers.image.ref.name", imageTag);
+        }
+
+        Files.write(destination.resolve(BaseImage.OCI_INDEX), mapper.writeValueAsBytes(index));
+        Files.write(destination.resolve(BaseImage.OCI_LAYOUT),
+                mapper.writeValueAsBytes(mapper.createObjectNode().put("imageLayoutVersion", "1.0.0")));
+
+        return manifestDescriptor.path("digest").asText();
+    }
+
+    String writeArchive(Path destination, String imageName, List<String> imageTags) throws IOException {
+        Files.createDirectories(destination.getParent());
+
+        byte[] configBytes = mapper.writeValueAsBytes(getConfig());
+        String configDigest = digest(configBytes);
+        String configName = configDigest.substring(configDigest.indexOf(':') + 1) + ".json";
+
+        ObjectNode manifest = mapper.createObjectNode();
+        manifest.put("Config", configName);
+
+        ArrayNode repoTags = manifest.putArray("RepoTags");
+
+        for (String imageTag : imageTags) {
+            repoTags.add(imageName + ":" + imageTag);
+        }
+
+        ArrayNode layerNames = manifest.putArray("Layers");
+        Set<String> written = new HashSet<>();
+
+        try (TarArchiveOutputStream tar = new TarArchiveOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(destination), BUFFER_SIZE))) {
+            tar.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
+            tar.setBigNumberMode(TarArchiveOutputStream.BIGNUMBER_POSIX);
+
+            for (ImageLayer layer : layers) {
+                String name = layer.getDiffId().substring(layer.getDiffId().indexOf(':') + 1) + "/layer.tar";
+                layerNames.add(name);
+
+                if (!written.add(name))
+                    continue;
+
+                Path file = layer.isCompressed() ? decompress(layer) : layer.getPath();
+
+                tar.putArchiveEntry(createEntry(name, Files.size(file)));
+                Files.copy(file, tar);
+                tar.closeArchiveEntry();
+
+                if (layer.isCompressed()) {
+                    Files.delete(file);
+                }
+            }
+
+            write(tar, configName, configBytes);
+            write(tar, BaseImage.DOCKER_MANIFEST, mapper.writeValueAsBytes(mapper.createArrayNode().add(manifest)));
+
+            tar.finish();
+        }
+
+        return configDigest;
+    }
+
+    private ObjectNode getConfig() {
+        ObjectNode result = config.deepCopy();
+        result.put("created", created);
+
+        return result;
+    }
+
+    private Path decompress(ImageLayer layer) throws IOException {
+        Path file = workDirectory.resolve("decompressed.tar");
+        Files.createDirectories(workDirectory);
+
+        try (InputStream input = new GZIPInputStream(Files.newInputStream(layer.getPath()), BUFFER_SIZE)) {
+            Files.copy(input, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        return file;
+    }
+
+    private void setList(String name, List<String> values) {
+        ArrayNode array = config.with("config").putArray(name);
+
+        for (String value : values) {
+            array.add(value);
+        }
+    }
+
+    private ObjectNode writeBlob(Path blobs, String mediaType, byte[] content) throws IOException {
+        String digest = digest(content);
+        Path blob = getBlob(blobs, digest);
+
+        Files.createDirectories(blob.getParent());
+        Files.write(blob, content);
+
+        ObjectNode descriptor = mapper.createObjectNode();
+        descriptor.put("mediaType", mediaType);
+        descriptor.put("digest", digest);
+        descriptor.put("size", content.length);
+
+        return descriptor;
+    }
+
+    private static Path getBlob(Path blobs, String digest) {
+        int separator = digest.indexOf(':');
+
+        return blobs.resolve(digest.substring(0, separator)).resolve(digest.substring(separator + 1));
+    }
+
+    private void write(TarArchiveOutputStream tar, String name, byte[] content) throws IOException {
+        tar.putArchiveEntry(createEntry(name, content.length));
+        tar.write(content);
+        tar.closeArchiveEntry();
+    }
+
+    private TarArchiveEntry createEntry(String name, long size) {
+        TarArchiveEntry entry = new TarArchiveEntry(name);
+        entry.setSize(size);
+        entry.setUserName("");
+        entry.setGroupName("");
+
+        if (timestamp != null) {
+            entry.setModTime(timestamp);
+        }
+
+        return entry;
+    }
+
+    private static ArrayNode getArray(ObjectNode node, String name) {
+        if (node.path(name).isArray()) {
+            return (ArrayNode) node.get(name);
+        }
+
+        return node.putArray(name);
+    }
+
+    private static String digest(byte[] content) {
+        MessageDigest digest = newDigest();
+        digest.update(content);
+
+        return toString(digest);
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(HASH_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String toString(MessageDigest digest) {
+        StringBuilder builder = new StringBuilder("sha256:");
+
+        for (byte b : digest.digest()) {
+            builder.append(String.format("%02x", b));
+        }
+
+        return builder.toString();
+    }
+}
@@ -0,0 +1,99 @@
+package fr.hbis.maven.plugins.docker;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+import org.apache.maven.plugin.logging.Log;
+
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.exception.NotFoundException;
+
+class ImageCache {
+    private final DockerClient dockerClient;
+    private final Path directory;
+    private final Log log;
+
+    ImageCache(DockerClient dockerClient, Path directory, Log log) {
+        this.dockerClient = dockerClient;
+        this.directory = directory;
+        this.log = log;
+    }
+
+    Path getFile(String imageName) {
+        return directory.resolve(getName(imageName) + ".tar");
+    }
+
+    boolean load(String imageName, String imageTag) throws IOException {
+        String image = imageName + ":" + imageTag;
+
+        if (isPresent(image))
+            return true;
+
+        Path file = getFile(imageName);
+        if (Files.notExists(file))
+            return false;
+
+        long start = System.nanoTime();
+
+        try (InputStream input = Files.newInputStream(file)) {
+            dockerClient.loadImageCmd(input).exec();
+        }
+
+        log.info(String.format("Loaded image cache %s (%d bytes, %d ms)", file, Files.size(file),
+                (System.nanoTime() - start) / 1000000));
+
+        return isPresent(image);
+    }
+
+    boolean save(String imageId, String imageName, String imageTag) throws IOException {
+        String name = getName(imageName);
+        Path file = getFile(imageName);
+        Path idFile = directory.resolve(name + ".id");
+
+        if (Files.exists(file) && Files.exists(idFile)
+                && new String(Files.readAllBytes(idFile), StandardCharsets.UTF_8).trim().equals(imageId)) {
+            return false;
+        }
+
+        long start = System.nanoTime();
+
+        Files.createDirectories(directory);
+        Path tmpFile = Files.createTempFile(directory, name, ".tmp");
+
+        try {
+            try (InputStream input = dockerClient.saveImageCmd(imageName).withTag(imageTag).exec()) {
+                Files.copy(input, tmpFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+
+            Files.move(tmpFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+            Files.write(tmpFile, imageId.getBytes(StandardCharsets.UTF_8));
+            Files.move(tmpFile, idFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmpFile);
+        }
+
+        log.info(String.format("Saved image cache %s (%d bytes, %d ms)", file, Files.size(file),
+                (System.nanoTime() - start) / 1000000));
+
+        return true;
+    }
+
+    private static String getName(String imageName) {
+        return "docker-" + imageName.replaceAll("[^A-Za-z0-9._-]", "_");
+    }
+
+    private boolean isPresent(String image) {
+        try {
+            dockerClient.inspectImageCmd(image).exec();
+
+            return true;
+        } catch (NotFoundException e) {
+            return false;
+        }
+    }
+}
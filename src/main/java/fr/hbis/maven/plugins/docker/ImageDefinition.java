@@ -0,0 +1,140 @@
+package fr.hbis.maven.plugins.docker;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.maven.model.Resource;
+import org.apache.maven.project.MavenProject;
+
+public class ImageDefinition {
+    private File directory;
+
+    private String imageName;
+
+    private List<String> imageTags;
+
+    private boolean push;
+
+    private boolean remove;
+
+    private List<Resource> resources;
+
+    private boolean layered;
+
+    private MavenProject project;
+
+    public ImageDefinition() {
+    }
+
+    ImageDefinition(File directory, String imageName, List<String> imageTags, boolean push, boolean remove,
+            List<Resource> resources, boolean layered) {
+        this.directory = directory;
+        this.imageName = imageName;
+        this.imageTags = imageTags;
+        this.push = push;
+        this.remove = remove;
+        this.resources = resources;
+        this.layered = layered;
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    public void setDirectory(File directory) {
+        this.directory = directory;
+    }
+
+    public String getImageName() {
+        return imageName;
+    }
+
+    public void setImageName(String imageName) {
+        this.imageName = imageName;
+    }
+
+    public List<String> getImageTags() {
+        return imageTags != null ? imageTags : Collections.<String>emptyList();
+    }
+
+    public void setImageTags(List<String> imageTags) {
+        this.imageTags = imageTags;
+    }
+
+    public boolean isPush() {
+        return push;
+    }
+
+    public void setPush(boolean push) {
+        this.push = push;
+    }
+
+    public boolean isRemove() {
+        return remove;
+    }
+
+    public void setRemove(boolean remove) {
+        this.remove = remove;
+    }
+
+    public List<Resource> getResources() {
+        return resources != null ? resources : Collections.<Resource>emptyList();
+    }
+
+    public void setResources(List<Resource> resources) {
+        this.resources = resources;
+    }
+
+    public boolean isLayered() {
+        return layered;
+    }
+
+    public void setLayered(boolean layered) {
+        this.layered = layered;
+    }
+
+    MavenProject getProject() {
+        return project;
+    }
+
+    void setProject(MavenProject project) {
+        this.project = project;
+    }
+
+    List<String> getEffectiveTags() {
+        return getImageTags().isEmpty() ? Collections.singletonList("latest") : getImageTags();
+    }
+
+    List<Resource> getContextResources() {
+        List<Resource> contextResources = new ArrayList<>(getResources());
+
+        Resource dockerResource = new Resource();
+        dockerResource.setDirectory(directory.toString());
+        contextResources.add(dockerResource);
+
+        return contextResources;
+    }
+
+    boolean provides(String image) {
+        String name = image;
+        String tag = "latest";
+
+        if (name.contains("@"))
+            return false;
+
+        int separator = name.lastIndexOf(':');
+        if (separator > name.lastIndexOf('/')) {
+            tag = name.substring(separator + 1);
+            name = name.substring(0, separator);
+        }
+
+        return name.equals(imageName) && getEffectiveTags().contains(tag);
+    }
+
+    @Override
+    public String toString() {
+        return imageName;
+    }
+}
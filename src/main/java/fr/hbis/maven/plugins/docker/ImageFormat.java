@@ -0,0 +1,5 @@
+package fr.hbis.maven.plugins.docker;
+
+enum ImageFormat {
+    OCI, DOCKER
+}
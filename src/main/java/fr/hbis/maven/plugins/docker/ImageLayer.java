@@ -0,0 +1,39 @@
+package fr.hbis.maven.plugins.docker;
+
+import java.nio.file.Path;
+
+class ImageLayer {
+    private final Path path;
+    private final boolean compressed;
+    private final String digest;
+    private final String diffId;
+    private final long size;
+
+    ImageLayer(Path path, boolean compressed, String digest, String diffId, long size) {
+        this.path = path;
+        this.compressed = compressed;
+        this.digest = digest;
+        this.diffId = diffId;
+        this.size = size;
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    boolean isCompressed() {
+        return compressed;
+    }
+
+    String getDigest() {
+        return digest;
+    }
+
+    String getDiffId() {
+        return diffId;
+    }
+
+    long getSize() {
+        return size;
+    }
+}
@@ -0,0 +1,108 @@
+package fr.hbis.maven.plugins.docker;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import org.apache.maven.plugin.logging.Log;
+
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.exception.NotFoundException;
+import com.github.dockerjava.core.command.PullImageResultCallback;
+
+class ImagePuller {
+    private final DockerClient dockerClient;
+    private final boolean always;
+    private final Log log;
+    private final Map<String, Future<Void>> pulls = new ConcurrentHashMap<>();
+    private final ExecutorService executor;
+
+    ImagePuller(DockerClient dockerClient, boolean always, int threads, Log log) {
+        this.dockerClient = dockerClient;
+        this.always = always;
+        this.log = log;
+        this.executor = Executors.newFixedThreadPool(threads > 0 ? threads : 1, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "docker-image-puller");
+                thread.setDaemon(true);
+
+                return thread;
+            }
+        });
+    }
+
+    void start(Collection<String> images) {
+        for (final String image : images) {
+            if (pulls.containsKey(image))
+                continue;
+
+            pulls.put(image, executor.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    pull(image);
+
+                    return null;
+                }
+            }));
+        }
+    }
+
+    void await(Collection<String> images) throws InterruptedException {
+        for (String image : images) {
+            Future<Void> pull = pulls.get(image);
+            if (pull == null)
+                continue;
+
+            try {
+                pull.get();
+            } catch (ExecutionException e) {
+                log.warn("Failed to pull image " + image + ": " + e.getCause().getMessage());
+            }
+        }
+    }
+
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void pull(String image) {
+        if (!always && isPresent(image)) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        String repository = image;
+        String tag = null;
+
+        int separator = image.lastIndexOf(':');
+        if (!image.contains("@") && separator > image.lastIndexOf('/')) {
+            repository = image.substring(0, separator);
+            tag = image.substring(separator + 1);
+        } else if (!image.contains("@")) {
+            tag = "latest";
+        }
+
+        log.info("Pulling image " + image + " ...");
+
+        dockerClient.pullImageCmd(repository).withTag(tag).exec(new PullImageResultCallback()).awaitSuccess();
+
+        log.info(String.format("Pulled image %s (%d ms)", image, (System.nanoTime() - start) / 1000000));
+    }
+
+    private boolean isPresent(String image) {
+        try {
+            dockerClient.inspectImageCmd(image).exec();
+
+            return true;
+        } catch (NotFoundException e) {
+            return false;
+        }
+    }
+}
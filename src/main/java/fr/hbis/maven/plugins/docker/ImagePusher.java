@@ -0,0 +1,109 @@
+package fr.hbis.maven.plugins.docker;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.maven.plugin.logging.Log;
+
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.model.PushResponseItem;
+import com.github.dockerjava.core.command.PushImageResultCallback;
+
+class ImagePusher {
+    private final DockerClient dockerClient;
+    private final int threads;
+    private final Log log;
+
+    ImagePusher(DockerClient dockerClient, int threads, Log log) {
+        this.dockerClient = dockerClient;
+        this.threads = threads > 0 ? threads : 1;
+        this.log = log;
+    }
+
+    long push(final String imageName, Collection<String> imageTags) throws InterruptedException {
+        List<String> tags = new ArrayList<>(new LinkedHashSet<>(imageTags));
+        long start = System.nanoTime();
+
+        if (tags.isEmpty()) {
+            return 0;
+        }
+
+        final AtomicLong bytesPushed = new AtomicLong(pushTag(imageName, tags.get(0)));
+
+        if (tags.size() > 1) {
+            ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, tags.size() - 1));
+
+            try {
+                List<Future<Void>> futures = new ArrayList<>();
+
+                for (final String tag : tags.subList(1, tags.size())) {
+                    futures.add(executor.submit(new Callable<Void>() {
+                        @Override
+                        public Void call() throws Exception {
+                            bytesPushed.addAndGet(pushTag(imageName, tag));
+
+                            return null;
+                        }
+                    }));
+                }
+
+                for (Future<Void> future : futures) {
+                    try {
+                        future.get();
+                    } catch (ExecutionException e) {
+                        if (e.getCause() instanceof RuntimeException) {
+                            throw (RuntimeException) e.getCause();
+                        }
+
+                        throw new IllegalStateException(e.getCause());
+                    }
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+
+        long elapsed = (System.nanoTime() - start) / 1000000;
+
+        log.info(String.format("Pushed %d tag(s) of %s in %d ms", tags.size(), imageName, elapsed));
+
+        return bytesPushed.get();
+    }
+
+    private long pushTag(String imageName, String imageTag) {
+        long start = System.nanoTime();
+        final Map<String, Long> layers = new ConcurrentHashMap<>();
+
+        dockerClient.pushImageCmd(imageName).withTag(imageTag).exec(new PushImageResultCallback() {
+            @Override
+            public void onNext(PushResponseItem item) {
+                if (item.getId() != null && item.getProgressDetail() != null
+                        && item.getProgressDetail().getTotal() != null) {
+                    layers.put(item.getId(), item.getProgressDetail().getTotal());
+                }
+
+                super.onNext(item);
+            }
+        }).awaitSuccess();
+
+        log.info(String.format("Pushed %s:%s (%d ms)", imageName, imageTag, (System.nanoTime() - start) / 1000000));
+
+        long bytesPushed = 0;
+
+        for (Long size : layers.values()) {
+            bytesPushed += size;
+        }
+
+        return bytesPushed;
+    }
+}
@@ -0,0 +1,118 @@
+package fr.hbis.maven.plugins.docker;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.maven.plugin.logging.Log;
+
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.exception.DockerException;
+import com.github.dockerjava.api.exception.NotFoundException;
+import com.github.dockerjava.api.model.Image;
+
+class ImageRemovals {
+    static final String LABEL = "fr.hbis.maven.plugins.docker.image";
+    static final String BUILD_LABEL = "fr.hbis.maven.plugins.docker.build";
+
+    private final Set<String> images = new LinkedHashSet<>();
+    private final Set<String> imageNames = new LinkedHashSet<>();
+    private final String buildId;
+    private final int threads;
+    private final Log log;
+
+    ImageRemovals(String buildId, int threads, Log log) {
+        this.buildId = buildId;
+        this.threads = threads > 0 ? threads : 1;
+        this.log = log;
+    }
+
+    String getBuildId() {
+        return buildId;
+    }
+
+    Log getLog() {
+        return log;
+    }
+
+    synchronized void add(String imageId, String imageName) {
+        images.add(imageId);
+        imageNames.add(imageName);
+    }
+
+    int remove(final DockerClient dockerClient) throws InterruptedException {
+        Set<String> pending;
+
+        synchronized (this) {
+            pending = new LinkedHashSet<>(images);
+
+            for (String imageName : imageNames) {
+                for (Image image : dockerClient.listImagesCmd().withDanglingFilter(true)
+                        .withLabelFilter(LABEL + "=" + imageName, BUILD_LABEL + "=" + buildId).exec()) {
+                    pending.add(image.getId());
+                }
+            }
+
+            images.clear();
+            imageNames.clear();
+        }
+
+        if (pending.isEmpty())
+            return 0;
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, pending.size()));
+        int removed = 0;
+
+        try {
+            List<String> removing = new ArrayList<>(pending);
+            List<Future<Boolean>> futures = new ArrayList<>();
+
+            for (final String image : pending) {
+                futures.add(executor.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() throws Exception {
+                        try {
+                            dockerClient.removeImageCmd(image).withForce(true).exec();
+
+                            return true;
+                        } catch (NotFoundException e) {
+                            return false;
+                        }
+                    }
+                }));
+            }
+
+            for (int i = 0; i < futures.size(); i++) {
+                try {
+                    if (futures.get(i).get()) {
+                        removed++;
+                    }
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof DockerException) {
+                        log.warn("Failed to remove image " + removing.get(i) + ": " + e.getCause().getMessage());
+
+                        continue;
+                    }
+
+                    if (e.getCause() instanceof RuntimeException) {
+                        throw (RuntimeException) e.getCause();
+                    }
+
+                    throw new IllegalStateException(e.getCause());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        log.info(String.format("Removed %d image(s)", removed));
+
+        return removed;
+    }
+}
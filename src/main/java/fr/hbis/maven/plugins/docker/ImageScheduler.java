@@ -0,0 +1,168 @@
+package fr.hbis.maven.plugins.docker;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+class ImageScheduler {
+    private final Map<ImageDefinition, Set<ImageDefinition>> dependencies = new LinkedHashMap<>();
+    private final Map<ImageDefinition, List<String>> externalImages = new HashMap<>();
+    private final int threads;
+
+    ImageScheduler(List<ImageDefinition> images, int threads) throws IOException {
+        this.threads = threads > 0 ? threads : 1;
+
+        for (ImageDefinition image : images) {
+            Set<ImageDefinition> imageDependencies = new LinkedHashSet<>();
+            List<String> imageExternalImages = new ArrayList<>();
+            Path dockerfile = image.getDirectory().toPath().resolve("Dockerfile");
+
+            for (String baseImage : Dockerfiles.getBaseImages(dockerfile)) {
+                boolean provided = false;
+
+                for (ImageDefinition other : images) {
+                    if (other != image && other.provides(baseImage)) {
+                        imageDependencies.add(other);
+                        provided = true;
+                    }
+                }
+
+                if (!provided) {
+                    imageExternalImages.add(baseImage);
+                }
+            }
+
+            dependencies.put(image, imageDependencies);
+            externalImages.put(image, imageExternalImages);
+        }
+
+        checkCycles();
+    }
+
+    Set<ImageDefinition> getDependencies(ImageDefinition image) {
+        return dependencies.get(image);
+    }
+
+    List<String> getExternalImages(ImageDefinition image) {
+        return externalImages.get(image);
+    }
+
+    void run(final Task task) throws Exception {
+        Map<ImageDefinition, Integer> pending = new HashMap<>();
+        Map<ImageDefinition, List<ImageDefinition>> dependents = new HashMap<>();
+
+        for (Map.Entry<ImageDefinition, Set<ImageDefinition>> entry : dependencies.entrySet()) {
+            pending.put(entry.getKey(), entry.getValue().size());
+
+            for (ImageDefinition dependency : entry.getValue()) {
+                if (!dependents.containsKey(dependency)) {
+                    dependents.put(dependency, new ArrayList<ImageDefinition>());
+                }
+
+                dependents.get(dependency).add(entry.getKey());
+            }
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, Math.max(1, dependencies.size())));
+        CompletionService<ImageDefinition> completionService = new ExecutorCompletionService<>(executor);
+        Exception failure = null;
+        int running = 0;
+
+        try {
+            for (ImageDefinition image : dependencies.keySet()) {
+                if (pending.get(image) == 0) {
+                    submit(completionService, task, image);
+                    running++;
+                }
+            }
+
+            while (running > 0) {
+                ImageDefinition image;
+
+                try {
+                    image = completionService.take().get();
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                    }
+
+                    continue;
+                } finally {
+                    running--;
+                }
+
+                if (failure != null || !dependents.containsKey(image))
+                    continue;
+
+                for (ImageDefinition dependent : dependents.get(image)) {
+                    int remaining = pending.get(dependent) - 1;
+                    pending.put(dependent, remaining);
+
+                    if (remaining == 0) {
+                        submit(completionService, task, dependent);
+                        running++;
+                    }
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private static void submit(CompletionService<ImageDefinition> completionService, final Task task,
+            final ImageDefinition image) {
+        completionService.submit(new Callable<ImageDefinition>() {
+            @Override
+            public ImageDefinition call() throws Exception {
+                task.run(image);
+
+                return image;
+            }
+        });
+    }
+
+    private void checkCycles() {
+        Set<ImageDefinition> visited = new LinkedHashSet<>();
+        Set<ImageDefinition> visiting = new LinkedHashSet<>();
+
+        for (ImageDefinition image : dependencies.keySet()) {
+            visit(image, visited, visiting);
+        }
+    }
+
+    private void visit(ImageDefinition image, Set<ImageDefinition> visited, Set<ImageDefinition> visiting) {
+        if (visited.contains(image))
+            return;
+
+        if (!visiting.add(image)) {
+            throw new IllegalStateException("dependency cycle between images " + visiting);
+        }
+
+        for (ImageDefinition dependency : dependencies.get(image)) {
+            visit(dependency, visited, visiting);
+        }
+
+        visiting.remove(image);
+        visited.add(image);
+    }
+
+    interface Task {
+        void run(ImageDefinition image) throws Exception;
+    }
+}
@@ -0,0 +1,217 @@
+package fr.hbis.maven.plugins.docker;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.command.InspectImageResponse;
+import com.github.dockerjava.api.exception.NotFoundException;
+
+class ImageSize {
+    private static final int MAX_HISTORY = 256;
+    private static final String NOP_PREFIX = "/bin/sh -c #(nop) ";
+    private static final String RUN_PREFIX = "/bin/sh -c ";
+    private static final String[] UNITS = { "B", "KB", "MB", "GB", "TB" };
+
+    private final long size;
+    private final List<Layer> layers;
+
+    ImageSize(long size, List<Layer> layers) {
+        this.size = size;
+        this.layers = layers;
+    }
+
+    long getSize() {
+        return size;
+    }
+
+    List<Layer> getLayers() {
+        return Collections.unmodifiableList(layers);
+    }
+
+    Layer getLargestLayer() {
+        Layer largest = null;
+
+        for (Layer layer : layers) {
+            if (largest == null || layer.getSize() > largest.getSize()) {
+                largest = layer;
+            }
+        }
+
+        return largest;
+    }
+
+    static ImageSize inspect(DockerClient dockerClient, String imageId) {
+        List<InspectImageResponse> history = new ArrayList<>();
+        String id = imageId;
+
+        while (id != null && !id.isEmpty() && history.size() < MAX_HISTORY) {
+            try {
+                InspectImageResponse image = dockerClient.inspectImageCmd(id).exec();
+
+                history.add(image);
+                id = image.getParent();
+            } catch (NotFoundException e) {
+                break;
+            }
+        }
+
+        return fromHistory(history);
+    }
+
+    static ImageSize fromHistory(List<InspectImageResponse> history) {
+        List<Layer> layers = new ArrayList<>();
+
+        for (int i = history.size() - 1; i >= 0; i--) {
+            InspectImageResponse image = history.get(i);
+            long parentSize = i < history.size() - 1 ? getTotalSize(history.get(i + 1)) : 0;
+            String createdBy = i < history.size() - 1 ? getCreatedBy(image) : "base " + getShortId(image.getId());
+
+            layers.add(new Layer(createdBy, Math.max(0, getTotalSize(image) - parentSize)));
+        }
+
+        return new ImageSize(history.isEmpty() ? 0 : getTotalSize(history.get(0)), layers);
+    }
+
+    static ImageSize read(Path file) throws IOException {
+        if (Files.notExists(file))
+            return null;
+
+        JsonNode document = new ObjectMapper().readTree(file.toFile());
+        List<Layer> layers = new ArrayList<>();
+
+        for (JsonNode layer : document.path("layers")) {
+            layers.add(new Layer(layer.path("createdBy").asText(), layer.path("size").asLong()));
+        }
+
+        return new ImageSize(document.path("size").asLong(), layers);
+    }
+
+    void write(Path file) throws IOException {
+        Map<String, Object> document = new LinkedHashMap<>();
+        document.put("size", size);
+
+        List<Map<String, Object>> values = new ArrayList<>();
+
+        for (Layer layer : layers) {
+            Map<String, Object> value = new LinkedHashMap<>();
+            value.put("createdBy", layer.getCreatedBy());
+            value.put("size", layer.getSize());
+
+            values.add(value);
+        }
+
+        document.put("layers", values);
+
+        Files.createDirectories(file.getParent());
+
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.enable(SerializationFeature.INDENT_OUTPUT);
+        mapper.writeValue(file.toFile(), document);
+    }
+
+    static String format(long bytes) {
+        double value = bytes;
+        int unit = 0;
+
+        while (value >= 1024 && unit < UNITS.length - 1) {
+            value /= 1024;
+            unit++;
+        }
+
+        return unit == 0 ? bytes + " B" : String.format(Locale.ROOT, "%.1f %s", value, UNITS[unit]);
+    }
+
+    static long parse(String value) {
+        String text = value.trim().toUpperCase(Locale.ROOT);
+
+        if (text.endsWith("B")) {
+            text = text.substring(0, text.length() - 1);
+        }
+
+        long multiplier = 1;
+
+        for (int i = UNITS.length - 1; i > 0; i--) {
+            if (text.endsWith(UNITS[i].substring(0, 1))) {
+                multiplier = 1L << (10 * i);
+                text = text.substring(0, text.length() - 1);
+                break;
+            }
+        }
+
+        return (long) (Double.parseDouble(text.trim()) * multiplier);
+    }
+
+    private static long getTotalSize(InspectImageResponse image) {
+        if (image.getVirtualSize() != null && image.getVirtualSize() > 0) {
+            return image.getVirtualSize();
+        }
+
+        return image.getSize() != null ? image.getSize() : 0;
+    }
+
+    private static String getCreatedBy(InspectImageResponse image) {
+        if (image.getContainerConfig() == null || image.getContainerConfig().getCmd() == null) {
+            return getShortId(image.getId());
+        }
+
+        StringBuilder builder = new StringBuilder();
+
+        for (String argument : image.getContainerConfig().getCmd()) {
+            if (builder.length() > 0) {
+                builder.append(' ');
+            }
+
+            builder.append(argument);
+        }
+
+        String createdBy = builder.toString();
+
+        if (createdBy.startsWith(NOP_PREFIX)) {
+            return createdBy.substring(NOP_PREFIX.length()).trim();
+        }
+
+        if (createdBy.startsWith(RUN_PREFIX)) {
+            return "RUN " + createdBy.substring(RUN_PREFIX.length()).trim();
+        }
+
+        return createdBy;
+    }
+
+    private static String getShortId(String id) {
+        if (id == null)
+            return "";
+
+        String value = id.startsWith("sha256:") ? id.substring(7) : id;
+
+        return value.length() > 12 ? value.substring(0, 12) : value;
+    }
+
+    static class Layer {
+        private final String createdBy;
+        private final long size;
+
+        Layer(String createdBy, long size) {
+            this.createdBy = createdBy;
+            this.size = size;
+        }
+
+        String getCreatedBy() {
+            return createdBy;
+        }
+
+        long getSize() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package fr.hbis.maven.plugins.docker;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+class LayerCache {
+    private static final String VERSION = "1";
+
+    private final Path directory;
+
+    private int hits;
+    private int misses;
+
+    LayerCache(Path directory) {
+        this.directory = directory;
+    }
+
+    String getKey(BuildContext context, Date timestamp) throws IOException {
+        ContextFingerprint fingerprint = new ContextFingerprint();
+        fingerprint.addEntries(context, null);
+        fingerprint.addOption("version", VERSION);
+        fingerprint.addOption("timestamp", timestamp.getTime());
+
+        Map<String, Path> entries = new TreeMap<>(context.getEntries());
+        StringBuilder executables = new StringBuilder();
+
+        for (Map.Entry<String, Path> entry : entries.entrySet()) {
+            if (!Files.isDirectory(entry.getValue()) && Files.isExecutable(entry.getValue())) {
+                executables.append(entry.getKey()).append('\n');
+            }
+        }
+
+        fingerprint.addOption("executables", executables);
+
+        return fingerprint.compute();
+    }
+
+    ImageLayer get(String key) throws IOException {
+        Path index = directory.resolve("layers").resolve(key);
+
+        if (Files.notExists(index)) {
+            misses++;
+
+            return null;
+        }
+
+        List<String> fields = Files.readAllLines(index, StandardCharsets.UTF_8);
+        Path blob = fields.size() == 2 ? getBlob(fields.get(0)) : null;
+
+        if (blob == null || Files.notExists(blob)) {
+            misses++;
+
+            return null;
+        }
+
+        hits++;
+
+        return new ImageLayer(blob, true, fields.get(0), fields.get(1), Files.size(blob));
+    }
+
+    ImageLayer put(String key, ImageLayer layer) throws IOException {
+        Path blob = getBlob(layer.getDigest());
+
+        if (Files.notExists(blob)) {
+            write(layer.getPath(), blob);
+        }
+
+        Path index = directory.resolve("layers").resolve(key);
+        Path temporaryIndex = directory.resolve("layers").resolve(key + "." + UUID.randomUUID() + ".tmp");
+
+        Files.createDirectories(index.getParent());
+        Files.write(temporaryIndex, Arrays.asList(layer.getDigest(), layer.getDiffId()),
+                StandardCharsets.UTF_8);
+        Files.move(temporaryIndex, index, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        return new ImageLayer(blob, true, layer.getDigest(), layer.getDiffId(), Files.size(blob));
+    }
+
+    int getHits() {
+        return hits;
+    }
+
+    int getMisses() {
+        return misses;
+    }
+
+    private Path getBlob(String digest) {
+        int separator = digest.indexOf(':');
+
+        return directory.resolve("blobs").resolve(digest.substring(0, separator))
+                .resolve(digest.substring(separator + 1));
+    }
+
+    private static void write(Path source, Path blob) throws IOException {
+        Path temporaryBlob = blob.resolveSibling(blob.getFileName() + "." + UUID.randomUUID() + ".tmp");
+
+        Files.createDirectories(blob.getParent());
+        Files.copy(source, temporaryBlob);
+
+        try {
+            Files.move(temporaryBlob, blob, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.deleteIfExists(temporaryBlob);
+
+            if (Files.notExists(blob)) {
+                throw e;
+            }
+        }
+    }
+}
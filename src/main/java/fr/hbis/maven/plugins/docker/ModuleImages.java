@@ -0,0 +1,175 @@
+package fr.hbis.maven.plugins.docker;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.maven.model.Plugin;
+import org.apache.maven.model.PluginExecution;
+import org.apache.maven.model.Resource;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+
+class ModuleImages {
+    private static final Set<String> IMAGE_OPTIONS = new HashSet<>(Arrays.asList("skipDocker", "images",
+            "directory", "imageName", "imageTags", "push", "remove", "resources", "layered"));
+
+    private ModuleImages() {
+    }
+
+    static List<ImageDefinition> read(MavenProject project, String groupId, String artifactId) {
+        List<ImageDefinition> definitions = new ArrayList<>();
+
+        for (Xpp3Dom configuration : getConfigurations(project, groupId, artifactId)) {
+            definitions.addAll(read(project, configuration));
+        }
+
+        return definitions;
+    }
+
+    static Set<String> getIgnoredOptions(MavenProject project, String groupId, String artifactId,
+            Xpp3Dom aggregatorConfiguration) {
+        Set<String> options = new LinkedHashSet<>();
+
+        for (Xpp3Dom configuration : getConfigurations(project, groupId, artifactId)) {
+            if (configuration == null || Boolean.parseBoolean(getValue(configuration, "skipDocker")))
+                continue;
+
+            for (Xpp3Dom option : configuration.getChildren()) {
+                if (IMAGE_OPTIONS.contains(option.getName()))
+                    continue;
+
+                Xpp3Dom aggregatorOption = aggregatorConfiguration != null
+                        ? aggregatorConfiguration.getChild(option.getName()) : null;
+
+                if (!option.equals(aggregatorOption)) {
+                    options.add(option.getName());
+                }
+            }
+        }
+
+        return options;
+    }
+
+    private static List<Xpp3Dom> getConfigurations(MavenProject project, String groupId, String artifactId) {
+        List<Xpp3Dom> configurations = new ArrayList<>();
+        Plugin plugin = project.getPlugin(groupId + ":" + artifactId);
+
+        if (plugin == null)
+            return configurations;
+
+        Xpp3Dom pluginConfiguration = (Xpp3Dom) plugin.getConfiguration();
+        boolean bound = false;
+
+        for (PluginExecution execution : plugin.getExecutions()) {
+            if (!execution.getGoals().contains("build"))
+                continue;
+
+            bound = true;
+
+            Xpp3Dom configuration = (Xpp3Dom) execution.getConfiguration();
+
+            if (pluginConfiguration != null) {
+                configuration = Xpp3Dom.mergeXpp3Dom(configuration != null ? new Xpp3Dom(configuration) : null,
+                        pluginConfiguration);
+            }
+
+            configurations.add(configuration);
+        }
+
+        if (!bound) {
+            configurations.add(pluginConfiguration);
+        }
+
+        return configurations;
+    }
+
+    static List<ImageDefinition> read(MavenProject project, Xpp3Dom configuration) {
+        List<ImageDefinition> definitions = new ArrayList<>();
+
+        if (configuration == null || Boolean.parseBoolean(getValue(configuration, "skipDocker")))
+            return definitions;
+
+        Xpp3Dom images = configuration.getChild("images");
+
+        if (images != null && images.getChildCount() > 0) {
+            for (Xpp3Dom image : images.getChildren()) {
+                definitions.add(readImage(project, image));
+            }
+        } else if (getValue(configuration, "imageName") != null) {
+            definitions.add(readImage(project, configuration));
+        }
+
+        return definitions;
+    }
+
+    private static ImageDefinition readImage(MavenProject project, Xpp3Dom configuration) {
+        ImageDefinition definition = new ImageDefinition();
+        definition.setProject(project);
+        definition.setImageName(getValue(configuration, "imageName"));
+        definition.setImageTags(getValues(configuration, "imageTags"));
+        definition.setPush(Boolean.parseBoolean(getValue(configuration, "push")));
+        definition.setRemove(Boolean.parseBoolean(getValue(configuration, "remove")));
+        definition.setLayered(Boolean.parseBoolean(getValue(configuration, "layered")));
+
+        String directory = getValue(configuration, "directory");
+
+        if (directory != null) {
+            definition.setDirectory(resolve(project, directory));
+        }
+
+        Xpp3Dom resources = configuration.getChild("resources");
+
+        if (resources != null) {
+            List<Resource> values = new ArrayList<>();
+
+            for (Xpp3Dom child : resources.getChildren()) {
+                Resource resource = new Resource();
+                resource.setDirectory(resolve(project, getValue(child, "directory")).toString());
+                resource.setTargetPath(getValue(child, "targetPath"));
+                resource.setIncludes(getValues(child, "includes"));
+                resource.setExcludes(getValues(child, "excludes"));
+
+                values.add(resource);
+            }
+
+            definition.setResources(values);
+        }
+
+        return definition;
+    }
+
+    private static File resolve(MavenProject project, String path) {
+        File file = new File(path != null ? path : "");
+
+        return file.isAbsolute() ? file : new File(project.getBasedir(), file.getPath());
+    }
+
+    private static String getValue(Xpp3Dom configuration, String name) {
+        Xpp3Dom child = configuration.getChild(name);
+
+        if (child == null || child.getValue() == null || child.getValue().trim().isEmpty())
+            return null;
+
+        return child.getValue().trim();
+    }
+
+    private static List<String> getValues(Xpp3Dom configuration, String name) {
+        List<String> values = new ArrayList<>();
+        Xpp3Dom child = configuration.getChild(name);
+
+        if (child != null) {
+            for (Xpp3Dom value : child.getChildren()) {
+                if (value.getValue() != null && !value.getValue().trim().isEmpty()) {
+                    values.add(value.getValue().trim());
+                }
+            }
+        }
+
+        return values;
+    }
+}
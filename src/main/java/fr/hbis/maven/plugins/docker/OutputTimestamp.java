@@ -0,0 +1,28 @@
+package fr.hbis.maven.plugins.docker;
+
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Date;
+
+class OutputTimestamp {
+    private OutputTimestamp() {
+    }
+
+    static Date parse(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return new Date(0);
+        }
+
+        String timestamp = value.trim();
+
+        if (timestamp.matches("[0-9]+")) {
+            return new Date(Long.parseLong(timestamp) * 1000);
+        }
+
+        try {
+            return Date.from(OffsetDateTime.parse(timestamp).toInstant());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+    }
+}
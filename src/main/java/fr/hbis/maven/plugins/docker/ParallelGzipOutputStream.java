@@ -0,0 +1,217 @@
+package fr.hbis.maven.plugins.docker;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+class ParallelGzipOutputStream extends FilterOutputStream {
+    static final int BLOCK_SIZE = 128 * 1024;
+
+    private static final int DICTIONARY_SIZE = 32 * 1024;
+    private static final byte[] HEADER = { 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff };
+
+    private final ExecutorService executor;
+    private final Deque<Future<byte[]>> blocks = new ArrayDeque<>();
+    private final int maxPendingBlocks;
+    private final CRC32 crc = new CRC32();
+
+    private byte[] block = new byte[BLOCK_SIZE];
+    private byte[] dictionary;
+    private int blockLength;
+    private int level;
+    private long uncompressedBytes;
+    private long compressedBytes;
+    private boolean finished;
+
+    ParallelGzipOutputStream(OutputStream output, int level, int threads) throws IOException {
+        super(output);
+
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+
+        this.level = level;
+        this.executor = Executors.newFixedThreadPool(poolSize);
+        this.maxPendingBlocks = poolSize * 2;
+
+        out.write(HEADER);
+        compressedBytes = HEADER.length;
+    }
+
+    void setLevel(int level) throws IOException {
+        if (level != this.level && blockLength > 0) {
+            submit(false);
+        }
+
+        this.level = level;
+    }
+
+    long getUncompressedBytes() {
+        return uncompressedBytes;
+    }
+
+    long getCompressedBytes() {
+        return compressedBytes;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[] { (byte) b }, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        crc.update(b, off, len);
+        uncompressedBytes += len;
+
+        while (len > 0) {
+            int count = Math.min(len, BLOCK_SIZE - blockLength);
+
+            System.arraycopy(b, off, block, blockLength, count);
+            blockLength += count;
+            off += count;
+            len -= count;
+
+            if (blockLength == BLOCK_SIZE) {
+                submit(false);
+            }
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    void finish() throws IOException {
+        if (finished)
+            return;
+
+        finished = true;
+
+        try {
+            submit(true);
+
+            while (!blocks.isEmpty()) {
+                writeBlock();
+            }
+
+            byte[] trailer = new byte[8];
+            writeInt(trailer, 0, crc.getValue());
+            writeInt(trailer, 4, uncompressedBytes);
+
+            out.write(trailer);
+            out.flush();
+            compressedBytes += trailer.length;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    void abort() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            finish();
+        } finally {
+            out.close();
+        }
+    }
+
+    private void submit(final boolean last) throws IOException {
+        final byte[] input = block;
+        final int length = blockLength;
+        final byte[] previous = dictionary;
+        final int blockLevel = level;
+
+        if (length >= DICTIONARY_SIZE) {
+            dictionary = Arrays.copyOfRange(input, length - DICTIONARY_SIZE, length);
+        } else {
+            dictionary = null;
+        }
+
+        blocks.add(executor.submit(new Callable<byte[]>() {
+            @Override
+            public byte[] call() {
+                return compress(input, length, previous, blockLevel, last);
+            }
+        }));
+
+        block = new byte[BLOCK_SIZE];
+        blockLength = 0;
+
+        while (blocks.size() > maxPendingBlocks || (!blocks.isEmpty() && blocks.peek().isDone())) {
+            writeBlock();
+        }
+    }
+
+    private void writeBlock() throws IOException {
+        byte[] compressed;
+
+        try {
+            compressed = blocks.poll().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            throw new InterruptedIOException("interrupted while compressing build context");
+        } catch (ExecutionException e) {
+            throw new IOException("failed to compress build context", e.getCause());
+        }
+
+        out.write(compressed);
+        compressedBytes += compressed.length;
+    }
+
+    private static byte[] compress(byte[] input, int length, byte[] dictionary, int level, boolean last) {
+        Deflater deflater = new Deflater(level, true);
+        ByteArrayOutputStream output = new ByteArrayOutputStream(length / 2 + 64);
+        byte[] buffer = new byte[64 * 1024];
+
+        try {
+            if (dictionary != null) {
+                deflater.setDictionary(dictionary);
+            }
+
+            deflater.setInput(input, 0, length);
+
+            if (last) {
+                deflater.finish();
+
+                while (!deflater.finished()) {
+                    output.write(buffer, 0, deflater.deflate(buffer));
+                }
+            } else {
+                int count;
+
+                do {
+                    count = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+                    output.write(buffer, 0, count);
+                } while (count == buffer.length || !deflater.needsInput());
+            }
+        } finally {
+            deflater.end();
+        }
+
+        return output.toByteArray();
+    }
+
+    private static void writeInt(byte[] buffer, int offset, long value) {
+        buffer[offset] = (byte) value;
+        buffer[offset + 1] = (byte) (value >> 8);
+        buffer[offset + 2] = (byte) (value >> 16);
+        buffer[offset + 3] = (byte) (value >> 24);
+    }
+}
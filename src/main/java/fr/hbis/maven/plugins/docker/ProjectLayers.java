@@ -0,0 +1,111 @@
+package fr.hbis.maven.plugins.docker;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.model.Resource;
+
+class ProjectLayers {
+    static final String DEPENDENCIES = "layers/dependencies";
+    static final String SNAPSHOT_DEPENDENCIES = "layers/snapshot-dependencies";
+    static final String RESOURCES = "layers/resources";
+    static final String CLASSES = "layers/classes";
+
+    private static final String CLASS_PATTERN = "**/*.class";
+
+    private final Collection<Artifact> artifacts;
+    private final File outputDirectory;
+    private final String targetPath;
+    private final Map<String, Integer> layerFiles = new LinkedHashMap<>();
+
+    ProjectLayers(Collection<Artifact> artifacts, File outputDirectory, String targetPath) {
+        this.artifacts = artifacts;
+        this.outputDirectory = outputDirectory;
+        this.targetPath = targetPath;
+
+        layerFiles.put(DEPENDENCIES, 0);
+        layerFiles.put(SNAPSHOT_DEPENDENCIES, 0);
+        layerFiles.put(RESOURCES, 0);
+        layerFiles.put(CLASSES, 0);
+    }
+
+    void addTo(BuildContext context) throws IOException {
+        for (String layer : getLayers()) {
+            addTo(layer, context, layer);
+        }
+    }
+
+    void addTo(String layer, BuildContext context, String layerPath) throws IOException {
+        int fileCount = context.getFileCount();
+
+        if (layer.equals(DEPENDENCIES) || layer.equals(SNAPSHOT_DEPENDENCIES)) {
+            Set<String> names = new HashSet<>();
+
+            for (Artifact artifact : artifacts) {
+                if (artifact.getFile() == null || !artifact.getFile().isFile()
+                        || artifact.isSnapshot() != layer.equals(SNAPSHOT_DEPENDENCIES))
+                    continue;
+
+                Path file = artifact.getFile().toPath();
+                String name = file.getFileName().toString();
+
+                if (!names.add(name)) {
+                    name = artifact.getGroupId() + "." + name;
+                }
+
+                context.add(layerPath, name, file, Files.size(file));
+            }
+        } else if (outputDirectory != null) {
+            Resource resource = new Resource();
+            resource.setDirectory(outputDirectory.toString());
+            resource.setTargetPath(layerPath);
+
+            if (layer.equals(CLASSES)) {
+                resource.addInclude(CLASS_PATTERN);
+            } else {
+                resource.addExclude(CLASS_PATTERN);
+            }
+
+            ContextScanner.scan(resource, context);
+        }
+
+        layerFiles.put(layer, layerFiles.get(layer) + context.getFileCount() - fileCount);
+    }
+
+    List<String> getLayers() {
+        return new ArrayList<>(layerFiles.keySet());
+    }
+
+    String getDestination(String layer) {
+        boolean dependencies = layer.equals(DEPENDENCIES) || layer.equals(SNAPSHOT_DEPENDENCIES);
+
+        return "/" + BuildContext.normalize(targetPath + "/" + (dependencies ? "lib" : "classes"));
+    }
+
+    List<String> getInstructions() {
+        List<String> instructions = new ArrayList<>();
+
+        for (Map.Entry<String, Integer> layer : layerFiles.entrySet()) {
+            if (layer.getValue() == 0)
+                continue;
+
+            instructions.add("COPY " + layer.getKey() + "/ " + getDestination(layer.getKey()) + "/");
+        }
+
+        return instructions;
+    }
+
+    int getFileCount(String layer) {
+        return layerFiles.get(layer);
+    }
+}
@@ -0,0 +1,49 @@
+package fr.hbis.maven.plugins.docker;
+
+import java.util.ArrayList;
+import java.util.List;
+
+class SizeBudget {
+    private final long maxImageSize;
+    private final long maxLayerSize;
+    private final int maxGrowth;
+
+    SizeBudget(long maxImageSize, long maxLayerSize, int maxGrowth) {
+        this.maxImageSize = maxImageSize;
+        this.maxLayerSize = maxLayerSize;
+        this.maxGrowth = maxGrowth;
+    }
+
+    boolean isEnabled() {
+        return maxImageSize > 0 || maxLayerSize > 0 || maxGrowth > 0;
+    }
+
+    List<String> check(ImageSize current, ImageSize previous) {
+        List<String> violations = new ArrayList<>();
+
+        if (maxImageSize > 0 && current.getSize() > maxImageSize) {
+            violations.add(String.format("image size %s exceeds maxImageSize %s", ImageSize.format(current.getSize()),
+                    ImageSize.format(maxImageSize)));
+        }
+
+        if (maxLayerSize > 0) {
+            for (ImageSize.Layer layer : current.getLayers()) {
+                if (layer.getSize() > maxLayerSize) {
+                    violations.add(String.format("layer size %s exceeds maxLayerSize %s: %s",
+                            ImageSize.format(layer.getSize()), ImageSize.format(maxLayerSize), layer.getCreatedBy()));
+                }
+            }
+        }
+
+        if (maxGrowth > 0 && previous != null && previous.getSize() > 0) {
+            long growth = (current.getSize() - previous.getSize()) * 100 / previous.getSize();
+
+            if (growth > maxGrowth) {
+                violations.add(String.format("image grew by %d%% (%s to %s), more than maxImageGrowth %d%%", growth,
+                        ImageSize.format(previous.getSize()), ImageSize.format(current.getSize()), maxGrowth));
+            }
+        }
+
+        return violations;
+    }
+}
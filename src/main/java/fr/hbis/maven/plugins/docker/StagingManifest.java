@@ -0,0 +1,209 @@
+package fr.hbis.maven.plugins.docker;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+class StagingManifest {
+    private static final String HASH_ALGORITHM = "SHA-256";
+
+    private final Path manifestPath;
+    private final Path stagingPath;
+    private final Map<String, Entry> previousEntries = new HashMap<>();
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicInteger copiedFiles = new AtomicInteger();
+    private final AtomicInteger skippedFiles = new AtomicInteger();
+    private final AtomicInteger removedFiles = new AtomicInteger();
+
+    StagingManifest(Path manifestPath, Path stagingPath) {
+        this.manifestPath = manifestPath;
+        this.stagingPath = stagingPath;
+    }
+
+    void load() throws IOException {
+        previousEntries.clear();
+
+        if (Files.notExists(manifestPath) || Files.notExists(stagingPath)) {
+            return;
+        }
+
+        try (BufferedReader reader = Files.newBufferedReader(manifestPath, StandardCharsets.UTF_8)) {
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split("\t", 4);
+                if (fields.length != 4)
+                    continue;
+
+                try {
+                    previousEntries.put(fields[3],
+                            new Entry(Long.parseLong(fields[0]), Long.parseLong(fields[1]), fields[2]));
+                } catch (NumberFormatException e) {
+                }
+            }
+        }
+    }
+
+    void save() throws IOException {
+        Files.createDirectories(manifestPath.getParent());
+
+        Path temporaryPath = manifestPath.resolveSibling(manifestPath.getFileName() + ".tmp");
+
+        try (BufferedWriter writer = Files.newBufferedWriter(temporaryPath, StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, Entry> entry : new TreeMap<>(entries).entrySet()) {
+                Entry value = entry.getValue();
+
+                writer.write(value.size + "\t" + value.lastModified + "\t" + value.hash + "\t" + entry.getKey());
+                writer.newLine();
+            }
+        }
+
+        Files.move(temporaryPath, manifestPath, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    void stage(Path source, Path destination, Transfer transfer) throws IOException {
+        String key = stagingPath.relativize(destination).toString();
+        BasicFileAttributes sourceAttributes = Files.readAttributes(source, BasicFileAttributes.class);
+        long size = sourceAttributes.size();
+        long lastModified = sourceAttributes.lastModifiedTime().toMillis();
+
+        Entry previous = previousEntries.get(key);
+        boolean staged = previous != null && isStaged(destination, size);
+
+        if (staged && previous.size == size && previous.lastModified == lastModified) {
+            entries.put(key, previous);
+            skippedFiles.incrementAndGet();
+
+            return;
+        }
+
+        String hash = hash(source);
+
+        if (staged && previous.hash.equals(hash)) {
+            Files.setLastModifiedTime(destination, FileTime.fromMillis(lastModified));
+            entries.put(key, new Entry(size, lastModified, hash));
+            skippedFiles.incrementAndGet();
+
+            return;
+        }
+
+        transfer.transfer(source, destination);
+        entries.put(key, new Entry(size, lastModified, hash));
+        copiedFiles.incrementAndGet();
+    }
+
+    void removeStaleFiles(Set<String> keys) throws IOException {
+        Set<String> staleKeys = new HashSet<>(previousEntries.keySet());
+        staleKeys.removeAll(keys);
+
+        for (String key : staleKeys) {
+            Path file = stagingPath.resolve(key);
+
+            if (Files.deleteIfExists(file)) {
+                removedFiles.incrementAndGet();
+            }
+
+            Path parent = file.getParent();
+
+            while (parent != null && !parent.equals(stagingPath) && parent.startsWith(stagingPath)) {
+                try (DirectoryStream<Path> stream = Files.newDirectoryStream(parent)) {
+                    if (stream.iterator().hasNext())
+                        break;
+                } catch (IOException e) {
+                    break;
+                }
+
+                Files.delete(parent);
+                parent = parent.getParent();
+            }
+        }
+    }
+
+    String getHash(String name) {
+        Entry entry = entries.get(name.replace('/', File.separatorChar));
+
+        return entry != null ? entry.hash : null;
+    }
+
+    int getCopiedFiles() {
+        return copiedFiles.get();
+    }
+
+    int getSkippedFiles() {
+        return skippedFiles.get();
+    }
+
+    int getRemovedFiles() {
+        return removedFiles.get();
+    }
+
+    private static boolean isStaged(Path destination, long size) throws IOException {
+        if (!Files.isRegularFile(destination)) {
+            return false;
+        }
+
+        return Files.size(destination) == size;
+    }
+
+    static String hash(Path file) throws IOException {
+        MessageDigest digest;
+
+        try {
+            digest = MessageDigest.getInstance(HASH_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+
+        byte[] buffer = new byte[65536];
+
+        try (InputStream input = Files.newInputStream(file)) {
+            int count;
+
+            while ((count = input.read(buffer)) != -1) {
+                digest.update(buffer, 0, count);
+            }
+        }
+
+        StringBuilder builder = new StringBuilder();
+
+        for (byte b : digest.digest()) {
+            builder.append(String.format("%02x", b));
+        }
+
+        return builder.toString();
+    }
+
+    interface Transfer {
+        void transfer(Path source, Path destination) throws IOException;
+    }
+
+    private static class Entry {
+        private final long size;
+        private final long lastModified;
+        private final String hash;
+
+        Entry(long size, long lastModified, String hash) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.hash = hash;
+        }
+    }
+}
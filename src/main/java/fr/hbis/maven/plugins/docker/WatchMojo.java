@@ -0,0 +1,135 @@
+package fr.hbis.maven.plugins.docker;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.maven.model.Resource;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+import com.github.dockerjava.api.DockerClient;
+
+@Mojo(name = "watch")
+public class WatchMojo extends BuildMojo {
+    @Parameter(property = "watchDebounce", defaultValue = "500")
+    private long watchDebounce;
+
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        if (skipDocker) {
+            getLog().info("Skipping docker watch");
+            return;
+        }
+
+        validateParameters();
+
+        List<ImageDefinition> definitions = getImageDefinitions();
+        DockerClient dockerClient = DockerClients.create(maxConnections);
+
+        try (DirectoryWatcher watcher = new DirectoryWatcher()) {
+            Map<Path, List<ImageDefinition>> roots = getRoots(definitions);
+
+            for (Path root : roots.keySet()) {
+                watcher.register(root);
+            }
+
+            ImageScheduler scheduler = new ImageScheduler(definitions, 1);
+
+            rebuild(dockerClient, definitions, definitions);
+
+            getLog().info(String.format("Watching %d directories for changes, press Ctrl-C to stop",
+                    watcher.size()));
+
+            while (!Thread.currentThread().isInterrupted()) {
+                Set<Path> changes = watcher.await(watchDebounce);
+                if (changes.isEmpty())
+                    break;
+
+                Set<ImageDefinition> selected = getChangedImages(changes, roots, definitions, scheduler);
+                if (selected.isEmpty())
+                    continue;
+
+                getLog().info(String.format("Detected %d changes, rebuilding %s", changes.size(), selected));
+
+                long start = System.nanoTime();
+
+                try {
+                    rebuild(dockerClient, definitions, selected);
+
+                    getLog().info(String.format("Rebuilt %s in %d ms", selected,
+                            (System.nanoTime() - start) / 1000000));
+                } catch (Exception e) {
+                    getLog().error("Rebuild failed: " + e.getMessage(), e);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            throw new MojoExecutionException("Error during plugin execution", e);
+        } finally {
+            DockerClients.close(dockerClient);
+        }
+    }
+
+    private static Map<Path, List<ImageDefinition>> getRoots(List<ImageDefinition> definitions) {
+        Map<Path, List<ImageDefinition>> roots = new LinkedHashMap<>();
+
+        for (ImageDefinition definition : definitions) {
+            for (Resource resource : definition.getContextResources()) {
+                Path root = Paths.get(resource.getDirectory()).toAbsolutePath().normalize();
+                List<ImageDefinition> images = roots.get(root);
+
+                if (images == null) {
+                    images = new ArrayList<>();
+                    roots.put(root, images);
+                }
+
+                images.add(definition);
+            }
+        }
+
+        return roots;
+    }
+
+    private Set<ImageDefinition> getChangedImages(Set<Path> changes, Map<Path, List<ImageDefinition>> roots,
+            List<ImageDefinition> definitions, ImageScheduler scheduler) throws IOException {
+        Path stagingRoot = buildDirectory.toPath().toAbsolutePath().normalize();
+        Set<ImageDefinition> selected = new LinkedHashSet<>();
+
+        for (Path change : changes) {
+            if (change.startsWith(stagingRoot) && change.getNameCount() > stagingRoot.getNameCount()
+                    && change.getName(stagingRoot.getNameCount()).toString().startsWith("docker"))
+                continue;
+
+            for (Map.Entry<Path, List<ImageDefinition>> root : roots.entrySet()) {
+                if (change.startsWith(root.getKey())) {
+                    selected.addAll(root.getValue());
+                }
+            }
+        }
+
+        boolean added = !selected.isEmpty();
+
+        while (added) {
+            added = false;
+
+            for (ImageDefinition definition : definitions) {
+                if (!selected.contains(definition) && !Collections.disjoint(scheduler.getDependencies(definition), selected)) {
+                    selected.add(definition);
+                    added = true;
+                }
+            }
+        }
+
+        return selected;
+    }
+}
@@ -0,0 +1,77 @@
+package fr.hbis.maven.plugins.docker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.Test;
+
+public class BuildLoggerTest {
+    @Test
+    public void testFull() {
+        RecordingLog log = new RecordingLog();
+        BuildLogger buildLogger = new BuildLogger(log, BuildLogVerbosity.FULL, 16);
+
+        buildLogger.stream("Step 1/2 : FROM alpine\n");
+        buildLogger.stream(" ---> 3fd9065eaf02\n");
+        buildLogger.stream("Step 2/2 : RUN apk add --no-cache curl\n");
+        buildLogger.stream("fetch http://dl-cdn.alpinelinux.org/alpine/v3.6/main/x86_64/APKINDEX.tar.gz\n");
+        buildLogger.close();
+
+        assertTrue(log.lines.contains("Step 1/2 : FROM alpine"));
+        assertTrue(log.lines.contains("---> 3fd9065eaf02"));
+
+        List<BuildLogger.Step> steps = buildLogger.getSteps();
+        assertEquals(2, steps.size());
+        assertEquals("1/2", steps.get(0).getNumber());
+        assertEquals("RUN apk add --no-cache curl", steps.get(1).getInstruction());
+    }
+
+    @Test
+    public void testSteps() {
+        RecordingLog log = new RecordingLog();
+        BuildLogger buildLogger = new BuildLogger(log, BuildLogVerbosity.STEPS, 16);
+
+        buildLogger.stream("Step 1/1 : FROM alpine\n ---> 3fd9065eaf02\n");
+        buildLogger.error("failed");
+        buildLogger.close();
+
+        assertTrue(log.lines.contains("Step 1/1 : FROM alpine"));
+        assertFalse(log.lines.contains("---> 3fd9065eaf02"));
+        assertTrue(log.errors.contains("failed"));
+    }
+
+    @Test
+    public void testBounded() {
+        RecordingLog log = new RecordingLog();
+        BuildLogger buildLogger = new BuildLogger(log, BuildLogVerbosity.ERRORS, 1);
+
+        for (int i = 0; i < 100; i++) {
+            buildLogger.stream("Step " + i + " : RUN true");
+        }
+
+        buildLogger.close();
+
+        assertEquals(100, buildLogger.getSteps().size());
+    }
+
+    private static class RecordingLog extends SystemStreamLog {
+        private final List<String> lines = Collections.synchronizedList(new ArrayList<String>());
+        private final List<String> errors = Collections.synchronizedList(new ArrayList<String>());
+
+        @Override
+        public void info(CharSequence content) {
+            lines.add(content.toString());
+        }
+
+        @Override
+        public void error(CharSequence content) {
+            errors.add(content.toString());
+        }
+    }
+}
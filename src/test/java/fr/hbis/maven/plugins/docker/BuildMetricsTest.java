@@ -0,0 +1,41 @@
+package fr.hbis.maven.plugins.docker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Path;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class BuildMetricsTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testWrite() throws Exception {
+        BuildMetrics metrics = new BuildMetrics();
+        metrics.record(BuildMetrics.EXECUTION, "client", System.nanoTime());
+        metrics.record("image-a", "stage", System.nanoTime());
+        metrics.count("image-a", "contextFiles", 10);
+        metrics.count("image-b", "contextFiles", 5);
+        metrics.setSuccess(true);
+
+        Path file = folder.getRoot().toPath().resolve("target/docker-metrics.json");
+        metrics.write(file);
+
+        JsonNode document = new ObjectMapper().readTree(file.toFile());
+        assertTrue(document.get("success").asBoolean());
+        assertEquals(3, document.get("scopes").size());
+        assertEquals("image-a", document.get("scopes").get(1).get("name").asText());
+        assertEquals(10, document.get("scopes").get(1).get("counters").get("contextFiles").asLong());
+
+        assertEquals(15, metrics.getCounter("contextFiles"));
+        assertTrue(metrics.getSummary().startsWith("Docker metrics: total "));
+        assertTrue(metrics.getSummary().contains("15 files"));
+    }
+}
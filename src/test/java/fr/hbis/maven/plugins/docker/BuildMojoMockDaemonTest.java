@@ -0,0 +1,97 @@
+package fr.hbis.maven.plugins.docker;
+
+import java.io.File;
+
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.MojoExecution;
+import org.apache.maven.plugin.testing.AbstractMojoTestCase;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.FileUtils;
+
+public class BuildMojoMockDaemonTest extends AbstractMojoTestCase {
+    private static final String BUILD_DIRECTORY = "target/mock-daemon";
+
+    private MockDockerDaemon daemon;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+
+        FileUtils.deleteDirectory(BUILD_DIRECTORY);
+
+        daemon = new MockDockerDaemon();
+
+        System.setProperty("DOCKER_HOST", daemon.getDockerHost());
+        System.setProperty("DOCKER_TLS_VERIFY", "false");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        System.clearProperty("DOCKER_HOST");
+        System.clearProperty("DOCKER_TLS_VERIFY");
+
+        daemon.close();
+
+        super.tearDown();
+    }
+
+    public void testBuild() throws Exception {
+        setupMojo(getTestFile("src/test/resources/pom-build.xml")).execute();
+
+        assertEquals(1, daemon.getBuilds());
+        assertTrue(daemon.getTags().contains("test-build:latest"));
+        assertTrue(new File(BUILD_DIRECTORY, "docker/Dockerfile").exists());
+        assertTrue(new File(BUILD_DIRECTORY, "docker-metrics.json").exists());
+    }
+
+    public void testBuildWithPush() throws Exception {
+        setupMojo(getTestFile("src/test/resources/pom-build-push.xml")).execute();
+
+        assertEquals(1, daemon.getPushes());
+        assertTrue(daemon.getTags().contains("127.0.0.1:5000/test-build-push:latest"));
+    }
+
+    public void testBuildWithRemove() throws Exception {
+        setupMojo(getTestFile("src/test/resources/pom-build-remove.xml")).execute();
+
+        assertEquals(1, daemon.getBuilds());
+        assertEquals(0, daemon.getImageCount());
+    }
+
+    public void testCompressedBuildSkipsStaging() throws Exception {
+        BuildMojo mojo = setupMojo(getTestFile("src/test/resources/pom-build.xml"));
+        setVariableValueToObject(mojo, "compressContext", true);
+        setVariableValueToObject(mojo, "compressionThreshold", 0L);
+        mojo.execute();
+
+        assertEquals(1, daemon.getBuilds());
+        assertFalse(new File(BUILD_DIRECTORY, "docker").exists());
+    }
+
+    public void testRebuildUnchanged() throws Exception {
+        File pom = getTestFile("src/test/resources/pom-build.xml");
+
+        BuildMojo mojo = setupMojo(pom);
+        setVariableValueToObject(mojo, "skipUnchanged", true);
+        mojo.execute();
+
+        mojo = setupMojo(pom);
+        setVariableValueToObject(mojo, "skipUnchanged", true);
+        mojo.execute();
+
+        assertEquals(1, daemon.getBuilds());
+    }
+
+    private BuildMojo setupMojo(File pom) throws Exception {
+        MavenProject project = new ProjectStub(pom);
+        MavenSession session = newMavenSession(project);
+
+        MojoExecution execution = newMojoExecution("build");
+        BuildMojo mojo = (BuildMojo) lookupConfiguredMojo(session, execution);
+        mojo.buildDirectory = new File(BUILD_DIRECTORY);
+        mojo.session = session;
+        mojo.execution = execution;
+
+        return mojo;
+    }
+}
@@ -0,0 +1,184 @@
+package fr.hbis.maven.plugins.docker;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.compress.utils.IOUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ContextArchiveTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testWrite() throws Exception {
+        Path source = folder.newFolder("source").toPath();
+        Files.write(source.resolve("Dockerfile"), "FROM scratch".getBytes(StandardCharsets.UTF_8));
+        Files.createDirectories(source.resolve("dir"));
+        Files.write(source.resolve("dir/file"), "content".getBytes(StandardCharsets.UTF_8));
+
+        BuildContext context = new BuildContext();
+        context.add(null, "Dockerfile", source.resolve("Dockerfile"));
+        context.add("/root", "dir", source.resolve("dir"));
+        context.add("/root", "dir/file", source.resolve("dir/file"));
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new ContextArchive(context).write(output);
+
+        assertEquals(Arrays.asList("Dockerfile", "root/dir/", "root/dir/file"), list(output.toByteArray()));
+    }
+
+    @Test
+    public void testExecutableMode() throws Exception {
+        BuildContext context = createExecutableContext();
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new ContextArchive(context).write(output);
+
+        Map<String, Integer> modes = modes(output.toByteArray());
+        assertEquals(Integer.valueOf(0755), modes.get("entrypoint.sh"));
+        assertEquals(Integer.valueOf(0644), modes.get("app.conf"));
+    }
+
+    @Test
+    public void testReproducible() throws Exception {
+        Path source = folder.newFolder("source").toPath();
+        Files.write(source.resolve("b"), "b".getBytes(StandardCharsets.UTF_8));
+        Files.write(source.resolve("a"), "a".getBytes(StandardCharsets.UTF_8));
+
+        BuildContext context = new BuildContext();
+        context.add(null, "b", source.resolve("b"));
+        context.add(null, "a", source.resolve("a"));
+
+        ByteArrayOutputStream first = new ByteArrayOutputStream();
+        new ContextArchive(context, new Date(0)).write(first);
+
+        Files.setLastModifiedTime(source.resolve("a"), FileTime.fromMillis(System.currentTimeMillis() - 60000));
+
+        ByteArrayOutputStream second = new ByteArrayOutputStream();
+        new ContextArchive(context, new Date(0)).write(second);
+
+        assertEquals(Arrays.asList("a", "b"), list(first.toByteArray()));
+        assertArrayEquals(first.toByteArray(), second.toByteArray());
+    }
+
+    @Test
+    public void testCompressed() throws Exception {
+        Path source = folder.newFolder("source").toPath();
+        Files.write(source.resolve("Dockerfile"), "FROM scratch".getBytes(StandardCharsets.UTF_8));
+        Files.write(source.resolve("app.jar"), new byte[4096]);
+
+        BuildContext context = new BuildContext();
+        context.add(null, "Dockerfile", source.resolve("Dockerfile"));
+        context.add(null, "app.jar", source.resolve("app.jar"));
+
+        ContextArchive archive = new ContextArchive(context);
+        archive.setCompression(6, 2);
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        archive.write(output);
+
+        assertEquals(output.size(), archive.getCompressedBytes());
+        assertEquals(Arrays.asList("Dockerfile", "app.jar"),
+                list(IOUtils.toByteArray(new GZIPInputStream(new ByteArrayInputStream(output.toByteArray())))));
+    }
+
+    @Test
+    public void testCompressedExecutableMode() throws Exception {
+        ContextArchive archive = new ContextArchive(createExecutableContext());
+        archive.setCompression(6, 2);
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        archive.write(output);
+
+        Map<String, Integer> modes = modes(
+                IOUtils.toByteArray(new GZIPInputStream(new ByteArrayInputStream(output.toByteArray()))));
+        assertEquals(Integer.valueOf(0755), modes.get("entrypoint.sh"));
+        assertEquals(Integer.valueOf(0644), modes.get("app.conf"));
+    }
+
+    @Test
+    public void testStream() throws Exception {
+        Path source = folder.newFolder("source").toPath();
+        Files.write(source.resolve("Dockerfile"), "FROM scratch".getBytes(StandardCharsets.UTF_8));
+
+        BuildContext context = new BuildContext();
+        context.add(null, "Dockerfile", source.resolve("Dockerfile"));
+
+        ContextArchive archive = new ContextArchive(context);
+        byte[] content;
+
+        try (InputStream input = archive.stream()) {
+            content = IOUtils.toByteArray(input);
+        }
+
+        archive.await();
+
+        assertTrue(content.length > 0);
+        assertEquals(Arrays.asList("Dockerfile"), list(content));
+    }
+
+    private BuildContext createExecutableContext() throws IOException {
+        Path source = folder.newFolder("executable").toPath();
+        Files.write(source.resolve("entrypoint.sh"), "#!/bin/sh".getBytes(StandardCharsets.UTF_8));
+        Files.write(source.resolve("app.conf"), "conf".getBytes(StandardCharsets.UTF_8));
+        Files.setPosixFilePermissions(source.resolve("entrypoint.sh"), PosixFilePermissions.fromString("rwxr-xr-x"));
+        Files.setPosixFilePermissions(source.resolve("app.conf"), PosixFilePermissions.fromString("rw-r--r--"));
+
+        BuildContext context = new BuildContext();
+        context.add(null, "entrypoint.sh", source.resolve("entrypoint.sh"));
+        context.add(null, "app.conf", source.resolve("app.conf"));
+
+        return context;
+    }
+
+    private static Map<String, Integer> modes(byte[] content) throws IOException {
+        Map<String, Integer> modes = new HashMap<>();
+
+        try (TarArchiveInputStream tar = new TarArchiveInputStream(new ByteArrayInputStream(content))) {
+            TarArchiveEntry entry;
+
+            while ((entry = tar.getNextTarEntry()) != null) {
+                modes.put(entry.getName(), entry.getMode() & 07777);
+            }
+        }
+
+        return modes;
+    }
+
+    private static List<String> list(byte[] content) throws IOException {
+        List<String> names = new ArrayList<>();
+
+        try (TarArchiveInputStream tar = new TarArchiveInputStream(new ByteArrayInputStream(content))) {
+            TarArchiveEntry entry;
+
+            while ((entry = tar.getNextTarEntry()) != null) {
+                names.add(entry.getName());
+            }
+        }
+
+        return names;
+    }
+}
@@ -0,0 +1,78 @@
+package fr.hbis.maven.plugins.docker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ContextFingerprintTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path sourcePath;
+    private BuildContext context;
+
+    @Before
+    public void setUp() throws Exception {
+        sourcePath = folder.newFolder("source").toPath();
+        Files.write(sourcePath.resolve("Dockerfile"), "FROM scratch".getBytes(StandardCharsets.UTF_8));
+        Files.createDirectories(sourcePath.resolve("dir"));
+        Files.write(sourcePath.resolve("dir/file"), "content".getBytes(StandardCharsets.UTF_8));
+
+        context = new BuildContext();
+        context.add(null, "Dockerfile", sourcePath.resolve("Dockerfile"));
+        context.add("/root", "dir/file", sourcePath.resolve("dir/file"));
+    }
+
+    @Test
+    public void testManifestHashesMatchContent() throws Exception {
+        Path stagingPath = folder.getRoot().toPath().resolve("docker");
+        StagingManifest manifest = new StagingManifest(folder.getRoot().toPath().resolve("docker.manifest"),
+                stagingPath);
+        new ContextStager(stagingPath, manifest, StagingMode.COPY, 1).stage(context);
+
+        assertEquals(fingerprint(null, false), fingerprint(manifest, false));
+    }
+
+    @Test
+    public void testOptionsChangeFingerprint() throws Exception {
+        assertNotEquals(fingerprint(null, false), fingerprint(null, true));
+    }
+
+    @Test
+    public void testBaseImageChangesFingerprint() throws Exception {
+        ContextFingerprint before = new ContextFingerprint();
+        before.addEntries(context, null);
+        before.addBaseImage("alpine:3.6", "sha256:1");
+
+        ContextFingerprint after = new ContextFingerprint();
+        after.addEntries(context, null);
+        after.addBaseImage("alpine:3.6", "sha256:2");
+
+        assertNotEquals(before.compute(), after.compute());
+    }
+
+    @Test
+    public void testContentChangesFingerprint() throws Exception {
+        String before = fingerprint(null, false);
+
+        Files.write(sourcePath.resolve("dir/file"), "changed".getBytes(StandardCharsets.UTF_8));
+
+        assertNotEquals(before, fingerprint(null, false));
+    }
+
+    private String fingerprint(StagingManifest manifest, boolean pull) throws Exception {
+        ContextFingerprint fingerprint = new ContextFingerprint();
+        fingerprint.addEntries(context, manifest);
+        fingerprint.addOption("buildPull", pull);
+
+        return fingerprint.compute();
+    }
+}
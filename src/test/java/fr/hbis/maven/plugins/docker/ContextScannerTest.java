@@ -0,0 +1,80 @@
+package fr.hbis.maven.plugins.docker;
+
+import static org.junit.Assert.assertEquals;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.maven.model.Resource;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ContextScannerTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path sourcePath;
+
+    @Before
+    public void setUp() throws Exception {
+        sourcePath = folder.newFolder("source").toPath();
+
+        write("a.txt");
+        write("b.log");
+        write("dir/c.txt");
+        write("dir/sub/d.txt");
+        Files.createDirectories(sourcePath.resolve("empty"));
+    }
+
+    @Test
+    public void testScanWithoutPatterns() throws Exception {
+        Resource resource = new Resource();
+        resource.setDirectory(sourcePath.toString());
+
+        assertEquals(Arrays.asList("a.txt", "b.log", "dir/c.txt", "dir/sub/d.txt"), scan(resource));
+    }
+
+    @Test
+    public void testScanWithTargetPath() throws Exception {
+        Resource resource = new Resource();
+        resource.setDirectory(sourcePath.toString());
+        resource.setTargetPath("/root");
+
+        assertEquals(Arrays.asList("root/a.txt", "root/b.log", "root/dir", "root/dir/c.txt", "root/dir/sub",
+                "root/dir/sub/d.txt", "root/empty"), scan(resource));
+    }
+
+    @Test
+    public void testScanWithPatterns() throws Exception {
+        Resource resource = new Resource();
+        resource.setDirectory(sourcePath.toString());
+        resource.addInclude("**/*.txt");
+        resource.addExclude("dir/sub/");
+
+        assertEquals(Arrays.asList("a.txt", "dir/c.txt"), scan(resource));
+    }
+
+    private List<String> scan(Resource resource) throws Exception {
+        BuildContext context = new BuildContext();
+        ContextScanner.scan(resource, context);
+
+        List<String> names = new ArrayList<>(context.getEntries().keySet());
+        Collections.sort(names);
+
+        return names;
+    }
+
+    private void write(String file) throws Exception {
+        Path path = sourcePath.resolve(file);
+
+        Files.createDirectories(path.getParent());
+        Files.write(path, file.getBytes(StandardCharsets.UTF_8));
+    }
+}
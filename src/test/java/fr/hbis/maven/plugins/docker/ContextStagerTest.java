@@ -0,0 +1,98 @@
+package fr.hbis.maven.plugins.docker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Date;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ContextStagerTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path sourcePath;
+    private Path stagingPath;
+    private BuildContext context;
+
+    @Before
+    public void setUp() throws Exception {
+        sourcePath = folder.newFolder("source").toPath();
+        stagingPath = folder.getRoot().toPath().resolve("docker");
+        context = new BuildContext();
+
+        for (int i = 0; i < 8; i++) {
+            Path file = sourcePath.resolve("dir" + (i % 3)).resolve("file" + i);
+
+            Files.createDirectories(file.getParent());
+            Files.write(file, ("content" + i).getBytes(StandardCharsets.UTF_8));
+            context.add("/root", sourcePath.relativize(file).toString(), file);
+        }
+    }
+
+    @Test
+    public void testCopy() throws Exception {
+        ContextStager stager = stage(StagingMode.COPY);
+
+        assertEquals(0, stager.getLinkedFiles());
+        assertFalse(Files.isSameFile(sourcePath.resolve("dir0/file0"), stagingPath.resolve("root/dir0/file0")));
+        assertEquals("content7", new String(Files.readAllBytes(stagingPath.resolve("root/dir1/file7")),
+                StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testHardlink() throws Exception {
+        ContextStager stager = stage(StagingMode.HARDLINK);
+
+        assertEquals(8, stager.getLinkedFiles());
+        assertTrue(Files.isSameFile(sourcePath.resolve("dir0/file0"), stagingPath.resolve("root/dir0/file0")));
+    }
+
+    @Test
+    public void testAuto() throws Exception {
+        ContextStager stager = stage(StagingMode.AUTO);
+
+        assertEquals(8, stager.getLinkedFiles());
+    }
+
+    @Test
+    public void testReproducible() throws Exception {
+        FileTime sourceTime = Files.getLastModifiedTime(sourcePath.resolve("dir0/file0"));
+        stage(StagingMode.HARDLINK);
+
+        StagingManifest manifest = new StagingManifest(folder.getRoot().toPath().resolve("docker.manifest"),
+                stagingPath);
+        manifest.load();
+
+        ContextStager stager = new ContextStager(stagingPath, manifest, StagingMode.HARDLINK, 4, new Date(0));
+        stager.stage(context);
+
+        assertEquals(0, stager.getLinkedFiles());
+        assertFalse(Files.isSameFile(sourcePath.resolve("dir0/file0"), stagingPath.resolve("root/dir0/file0")));
+        assertEquals(0, Files.getLastModifiedTime(stagingPath.resolve("root/dir0/file0")).toMillis());
+        assertEquals(0, Files.getLastModifiedTime(stagingPath.resolve("root")).toMillis());
+        assertEquals(sourceTime, Files.getLastModifiedTime(sourcePath.resolve("dir0/file0")));
+    }
+
+    private ContextStager stage(StagingMode mode) throws Exception {
+        StagingManifest manifest = new StagingManifest(folder.getRoot().toPath().resolve("docker.manifest"),
+                stagingPath);
+        manifest.load();
+
+        ContextStager stager = new ContextStager(stagingPath, manifest, mode, 4);
+        stager.stage(context);
+        manifest.save();
+
+        assertEquals(8, manifest.getCopiedFiles());
+
+        return stager;
+    }
+}
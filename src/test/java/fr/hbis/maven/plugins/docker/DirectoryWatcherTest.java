@@ -0,0 +1,50 @@
+package fr.hbis.maven.plugins.docker;
+
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DirectoryWatcherTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testChangesAreDebounced() throws Exception {
+        Path root = folder.newFolder("root").toPath();
+        Files.createDirectories(root.resolve("dir"));
+
+        try (DirectoryWatcher watcher = new DirectoryWatcher()) {
+            watcher.register(root);
+
+            Files.write(root.resolve("a"), "a".getBytes(StandardCharsets.UTF_8));
+            Files.write(root.resolve("dir/b"), "b".getBytes(StandardCharsets.UTF_8));
+
+            Set<Path> changes = watcher.await(200);
+
+            assertTrue(changes.contains(root.resolve("a")));
+            assertTrue(changes.contains(root.resolve("dir/b")));
+        }
+    }
+
+    @Test
+    public void testNewDirectoriesAreWatched() throws Exception {
+        Path root = folder.newFolder("root").toPath();
+
+        try (DirectoryWatcher watcher = new DirectoryWatcher()) {
+            watcher.register(root);
+
+            Files.createDirectories(root.resolve("new"));
+            assertTrue(watcher.await(200).contains(root.resolve("new")));
+
+            Files.write(root.resolve("new/c"), "c".getBytes(StandardCharsets.UTF_8));
+            assertTrue(watcher.await(200).contains(root.resolve("new/c")));
+        }
+    }
+}
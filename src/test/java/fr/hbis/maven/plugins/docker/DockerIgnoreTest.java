@@ -0,0 +1,54 @@
+package fr.hbis.maven.plugins.docker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class DockerIgnoreTest {
+    @Test
+    public void testPatterns() {
+        DockerIgnore dockerIgnore = new DockerIgnore(Arrays.asList("# comment", "", "*.log", "/target",
+                "**/node_modules", "docs/**/*.md", "tmp?", "Dockerfile"));
+
+        assertTrue(dockerIgnore.isIgnored("build.log"));
+        assertFalse(dockerIgnore.isIgnored("root/build.log"));
+        assertTrue(dockerIgnore.isIgnored("target"));
+        assertTrue(dockerIgnore.isIgnored("target/classes/Main.class"));
+        assertTrue(dockerIgnore.isIgnored("node_modules/lib/index.js"));
+        assertTrue(dockerIgnore.isIgnored("web/app/node_modules"));
+        assertTrue(dockerIgnore.isIgnored("docs/README.md"));
+        assertTrue(dockerIgnore.isIgnored("docs/api/v1/README.md"));
+        assertTrue(dockerIgnore.isIgnored("tmp1"));
+        assertFalse(dockerIgnore.isIgnored("tmp12"));
+        assertFalse(dockerIgnore.isIgnored("Dockerfile"));
+        assertFalse(dockerIgnore.isIgnored(".dockerignore"));
+    }
+
+    @Test
+    public void testExclusions() {
+        DockerIgnore dockerIgnore = new DockerIgnore(Arrays.asList("*.md", "!README.md", "cache", "!cache/keep"));
+
+        assertTrue(dockerIgnore.isIgnored("CHANGELOG.md"));
+        assertFalse(dockerIgnore.isIgnored("README.md"));
+        assertTrue(dockerIgnore.isIgnored("cache/data"));
+        assertFalse(dockerIgnore.isIgnored("cache/keep"));
+        assertFalse(dockerIgnore.isPrunable("cache"));
+    }
+
+    @Test
+    public void testBuildContext() throws Exception {
+        DockerIgnore dockerIgnore = new DockerIgnore(Arrays.asList("root/*.log"));
+        BuildContext context = new BuildContext(dockerIgnore);
+
+        context.add("/root", "app.log", null);
+        context.add("/root", "app.jar", null);
+
+        assertTrue(context.getEntries().containsKey("root/app.jar"));
+        assertFalse(context.getEntries().containsKey("root/app.log"));
+        assertEquals(1, context.getIgnoredEntries());
+    }
+}
@@ -0,0 +1,47 @@
+package fr.hbis.maven.plugins.docker;
+
+import static org.junit.Assert.assertEquals;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DockerfilesTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testGetBaseImages() throws Exception {
+        Path dockerfile = folder.getRoot().toPath().resolve("Dockerfile");
+        Files.write(dockerfile, Arrays.asList(
+                "# FROM commented:1",
+                "ARG VERSION=1",
+                "FROM --platform=linux/amd64 maven:3-jdk-8 AS builder",
+                "RUN mvn package",
+                "FROM builder AS test",
+                "FROM base:${VERSION}",
+                "from \\",
+                "    registry.host.io:5000/group/runtime:1.0",
+                "FROM scratch",
+                "COPY --from=builder /app /app"), StandardCharsets.UTF_8);
+
+        assertEquals(Arrays.asList("maven:3-jdk-8", "registry.host.io:5000/group/runtime:1.0"),
+                Dockerfiles.getBaseImages(dockerfile));
+    }
+
+    @Test
+    public void testProvides() throws Exception {
+        ImageDefinition image = new ImageDefinition(null, "registry.host.io:5000/group/runtime",
+                Arrays.asList("1.0", "latest"), false, false, null, false);
+
+        assertEquals(true, image.provides("registry.host.io:5000/group/runtime"));
+        assertEquals(true, image.provides("registry.host.io:5000/group/runtime:1.0"));
+        assertEquals(false, image.provides("registry.host.io:5000/group/runtime:2.0"));
+        assertEquals(false, image.provides("registry.host.io:5000/group/other"));
+    }
+}
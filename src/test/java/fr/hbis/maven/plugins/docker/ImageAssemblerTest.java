@@ -0,0 +1,190 @@
+package fr.hbis.maven.plugins.docker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.maven.model.Resource;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class ImageAssemblerTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testLayoutFromScratch() throws Exception {
+        Path layout = folder.getRoot().toPath().resolve("oci");
+
+        ImageAssembler assembler = new ImageAssembler(BaseImage.scratch("linux", "amd64"), work());
+        ImageLayer layer = assembler.addLayer(context("base", "etc/base.conf", "base"));
+        assembler.setEntrypoint(Arrays.asList("/bin/app"));
+        assembler.writeLayout(layout, "test/app", Arrays.asList("1.0", "latest"));
+
+        JsonNode index = new ObjectMapper().readTree(layout.resolve("index.json").toFile());
+        assertEquals(2, index.path("manifests").size());
+        assertEquals("1.0", index.path("manifests").path(0).path("annotations")
+                .path("org.opencontainers.image.ref.name").asText());
+
+        BaseImage base = BaseImage.load(layout, "linux", "amd64", work());
+        assertEquals(1, base.getLayers().size());
+        assertEquals(layer.getDigest(), base.getLayers().get(0).getDigest());
+        assertEquals(layer.getDiffId(), base.getConfig().path("rootfs").path("diff_ids").path(0).asText());
+        assertEquals("/bin/app", base.getConfig().path("config").path("Entrypoint").path(0).asText());
+        assertEquals(Arrays.asList("etc/base.conf"), list(Files.newInputStream(base.getLayers().get(0).getPath()),
+                true));
+    }
+
+    @Test
+    public void testArchiveFromLayout() throws Exception {
+        Path layout = folder.getRoot().toPath().resolve("oci");
+        Path archive = folder.getRoot().toPath().resolve("image.tar");
+
+        ImageAssembler assembler = new ImageAssembler(BaseImage.scratch("linux", "amd64"), work());
+        assembler.addLayer(context("base", "etc/base.conf", "base"));
+        assembler.addEnvironment(Collections.singletonMap("A", "1"));
+        assembler.writeLayout(layout, "test/base", Collections.singletonList("1.0"));
+
+        assembler = new ImageAssembler(BaseImage.load(layout, "linux", "amd64", work()), work());
+        assembler.addLayer(context("app", "app/app.jar", "app"));
+        assembler.addEnvironment(Collections.singletonMap("B", "2"));
+        assembler.writeArchive(archive, "test/app", Collections.singletonList("1.0"));
+
+        BaseImage image = BaseImage.load(archive, "linux", "amd64", work());
+        assertEquals(2, image.getLayers().size());
+        assertFalse(image.getLayers().get(0).isCompressed());
+        assertEquals(image.getLayers().get(1).getDiffId(), image.getLayers().get(1).getDigest());
+        assertEquals("A=1", image.getConfig().path("config").path("Env").path(0).asText());
+        assertEquals("B=2", image.getConfig().path("config").path("Env").path(1).asText());
+        assertEquals(Arrays.asList("app/app.jar"), list(Files.newInputStream(image.getLayers().get(1).getPath()),
+                false));
+        assertEquals("sha256:" + StagingManifest.hash(image.getLayers().get(1).getPath()),
+                image.getLayers().get(1).getDiffId());
+
+        JsonNode manifest = new ObjectMapper().readTree(work().resolve("base/manifest.json").toFile());
+        assertEquals("test/app:1.0", manifest.path(0).path("RepoTags").path(0).asText());
+    }
+
+    @Test
+    public void testExecutableMode() throws Exception {
+        Path binary = folder.getRoot().toPath().resolve("bin/app/run");
+        Files.createDirectories(binary.getParent());
+        Files.write(binary, "#!/bin/sh".getBytes(StandardCharsets.UTF_8));
+        Files.setPosixFilePermissions(binary, PosixFilePermissions.fromString("rwxr-xr-x"));
+
+        BuildContext context = context("bin", "app/run.conf", "conf");
+        Files.setPosixFilePermissions(binary.resolveSibling("run.conf"), PosixFilePermissions.fromString("rw-r--r--"));
+
+        ImageLayer layer = new ImageAssembler(BaseImage.scratch("linux", "amd64"), work()).addLayer(context);
+        Map<String, Integer> modes = new HashMap<>();
+
+        try (TarArchiveInputStream tar = new TarArchiveInputStream(
+                new GZIPInputStream(Files.newInputStream(layer.getPath())))) {
+            TarArchiveEntry entry;
+
+            while ((entry = tar.getNextTarEntry()) != null) {
+                modes.put(entry.getName(), entry.getMode() & 07777);
+            }
+        }
+
+        assertEquals(Integer.valueOf(0755), modes.get("app/run"));
+        assertEquals(Integer.valueOf(0644), modes.get("app/run.conf"));
+    }
+
+    @Test
+    public void testLayerCache() throws Exception {
+        LayerCache cache = new LayerCache(folder.getRoot().toPath().resolve("cache"));
+        BuildContext context = context("app", "app/app.jar", "app");
+
+        ImageLayer first = new ImageAssembler(BaseImage.scratch("linux", "amd64"), work(), new Date(0))
+                .addLayer(context, cache);
+        ImageLayer second = new ImageAssembler(BaseImage.scratch("linux", "amd64"), work(), new Date(0))
+                .addLayer(context, cache);
+
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getHits());
+        assertEquals(first.getDigest(), second.getDigest());
+        assertEquals(first.getDiffId(), second.getDiffId());
+        assertTrue(second.getPath().startsWith(folder.getRoot().toPath().resolve("cache")));
+    }
+
+    @Test
+    public void testDuplicateLayers() throws Exception {
+        Path layout = folder.getRoot().toPath().resolve("oci");
+        Path archive = folder.getRoot().toPath().resolve("image.tar");
+        BuildContext context = context("app", "app/app.jar", "app");
+
+        ImageAssembler assembler = new ImageAssembler(BaseImage.scratch("linux", "amd64"), work(), new Date(0));
+        ImageLayer first = assembler.addLayer(context);
+        ImageLayer second = assembler.addLayer(context);
+        assertEquals(first.getDigest(), second.getDigest());
+
+        assembler.writeLayout(layout, "test/app", Collections.singletonList("1.0"));
+        assembler.writeArchive(archive, "test/app", Collections.singletonList("1.0"));
+
+        assertEquals(2, BaseImage.load(layout, "linux", "amd64", work()).getLayers().size());
+        assertEquals(2, BaseImage.load(archive, "linux", "amd64", work()).getLayers().size());
+    }
+
+    @Test(expected = IOException.class)
+    public void testInvalidBaseImage() throws Exception {
+        BaseImage.load(folder.newFolder("empty").toPath(), "linux", "amd64", work());
+    }
+
+    private Path work() {
+        return folder.getRoot().toPath().resolve("work");
+    }
+
+    private BuildContext context(String directory, String file, String content) throws IOException {
+        Path path = folder.getRoot().toPath().resolve(directory).resolve(file);
+        Files.createDirectories(path.getParent());
+        Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+
+        Resource resource = new Resource();
+        resource.setDirectory(folder.getRoot().toPath().resolve(directory).toString());
+        resource.addInclude("**");
+
+        BuildContext context = new BuildContext();
+        ContextScanner.scan(resource, context);
+
+        assertTrue(context.size() > 0);
+
+        return context;
+    }
+
+    private static List<String> list(InputStream input, boolean compressed) throws IOException {
+        List<String> names = new ArrayList<>();
+
+        try (TarArchiveInputStream tar = new TarArchiveInputStream(
+                compressed ? new GZIPInputStream(input) : input)) {
+            TarArchiveEntry entry;
+
+            while ((entry = tar.getNextTarEntry()) != null) {
+                names.add(entry.getName());
+            }
+        }
+
+        return names;
+    }
+}
@@ -0,0 +1,100 @@
+package fr.hbis.maven.plugins.docker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.core.DefaultDockerClientConfig;
+import com.github.dockerjava.core.DockerClientBuilder;
+import com.github.dockerjava.core.command.BuildImageResultCallback;
+
+public class ImageCacheTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private MockDockerDaemon daemon;
+    private DockerClient dockerClient;
+
+    @Before
+    public void setUp() throws Exception {
+        daemon = new MockDockerDaemon();
+        dockerClient = DockerClientBuilder.getInstance(DefaultDockerClientConfig.createDefaultConfigBuilder()
+                .withDockerHost(daemon.getDockerHost()).withDockerTlsVerify(false).build()).build();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        DockerClients.close(dockerClient);
+        daemon.close();
+    }
+
+    @Test
+    public void testSaveLoad() throws Exception {
+        Path directory = folder.getRoot().toPath().resolve("cache");
+        ImageCache cache = new ImageCache(dockerClient, directory, new SystemStreamLog());
+
+        String imageId = dockerClient
+                .buildImageCmd(new ByteArrayInputStream("context".getBytes(StandardCharsets.UTF_8)))
+                .withTags(Collections.singleton("test:1.0")).exec(new BuildImageResultCallback()).awaitImageId();
+
+        assertFalse(cache.load("missing", "1.0"));
+        assertTrue(cache.save(imageId, "test", "1.0"));
+        assertEquals(directory.resolve("docker-test.tar"), cache.getFile("test"));
+        assertTrue(Files.exists(cache.getFile("test")));
+        assertFalse(cache.save(imageId, "test", "1.0"));
+
+        dockerClient.removeImageCmd(imageId).withForce(true).exec();
+
+        assertEquals(0, daemon.getImageCount());
+        assertTrue(cache.load("test", "1.0"));
+        assertEquals(Collections.singleton("test:1.0"), daemon.getTags());
+    }
+
+    @Test
+    public void testSharedDirectory() throws Exception {
+        Path directory = folder.getRoot().toPath().resolve("cache");
+        ImageCache cache = new ImageCache(dockerClient, directory, new SystemStreamLog());
+
+        String first = dockerClient.buildImageCmd(new ByteArrayInputStream("a".getBytes(StandardCharsets.UTF_8)))
+                .withTags(Collections.singleton("group/a:latest")).exec(new BuildImageResultCallback())
+                .awaitImageId();
+        String second = dockerClient.buildImageCmd(new ByteArrayInputStream("b".getBytes(StandardCharsets.UTF_8)))
+                .withTags(Collections.singleton("group/b:latest")).exec(new BuildImageResultCallback())
+                .awaitImageId();
+
+        assertTrue(cache.save(first, "group/a", "latest"));
+        assertTrue(cache.save(second, "group/b", "latest"));
+        assertEquals(directory.resolve("docker-group_a.tar"), cache.getFile("group/a"));
+        assertTrue(Files.exists(cache.getFile("group/a")));
+        assertTrue(Files.exists(cache.getFile("group/b")));
+        assertFalse(cache.save(first, "group/a", "latest"));
+        assertFalse(cache.save(second, "group/b", "latest"));
+    }
+
+    @Test
+    public void testCacheFrom() throws Exception {
+        String cacheFrom = new ObjectMapper().writeValueAsString(new LinkedHashSet<>(Arrays.asList("a:1", "b:2")));
+
+        dockerClient.buildImageCmd(new ByteArrayInputStream("context".getBytes(StandardCharsets.UTF_8)))
+                .withCacheFrom(Collections.singleton(cacheFrom)).exec(new BuildImageResultCallback()).awaitImageId();
+
+        assertEquals(new LinkedHashSet<>(Arrays.asList("a:1", "b:2")), daemon.getCacheFrom());
+    }
+}
@@ -0,0 +1,116 @@
+package fr.hbis.maven.plugins.docker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.core.DefaultDockerClientConfig;
+import com.github.dockerjava.core.DockerClientBuilder;
+import com.github.dockerjava.core.command.BuildImageResultCallback;
+import com.github.dockerjava.jaxrs.JerseyDockerCmdExecFactory;
+
+public class ImagePusherTest {
+    private static final String IMAGE_NAME = "localhost:5000/test";
+    private static final int IMAGE_SIZE = 64 * 1024;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private MockDockerDaemon daemon;
+    private DockerClient dockerClient;
+
+    @Before
+    public void setUp() throws Exception {
+        daemon = new MockDockerDaemon();
+        dockerClient = DockerClientBuilder
+                .getInstance(DefaultDockerClientConfig.createDefaultConfigBuilder()
+                        .withDockerHost(daemon.getDockerHost()).withDockerTlsVerify(false).build())
+                .withDockerCmdExecFactory(
+                        new JerseyDockerCmdExecFactory().withMaxTotalConnections(8).withMaxPerRouteConnections(8))
+                .build();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        DockerClients.close(dockerClient);
+        daemon.close();
+    }
+
+    @Test
+    public void testDuplicateTags() throws Exception {
+        buildImage("latest", "1.0");
+
+        long bytes = new ImagePusher(dockerClient, 4, new SystemStreamLog()).push(IMAGE_NAME,
+                Arrays.asList("latest", "1.0", "latest", "1.0"));
+
+        assertEquals(2, daemon.getPushes());
+        assertEquals(new HashSet<>(Arrays.asList(IMAGE_NAME + ":latest", IMAGE_NAME + ":1.0")),
+                new HashSet<>(daemon.getPushedTags()));
+        assertTrue(bytes > 0);
+    }
+
+    @Test
+    public void testFirstTagPushedFirst() throws Exception {
+        List<String> tags = Arrays.asList("latest", "1.0", "1.1", "1.2", "1.3");
+        buildImage(tags.toArray(new String[tags.size()]));
+
+        new ImagePusher(dockerClient, 4, new SystemStreamLog()).push(IMAGE_NAME, tags);
+
+        assertEquals(IMAGE_NAME + ":latest", daemon.getPushedTags().get(0));
+    }
+
+    @Test
+    public void testConcurrentPushes() throws Exception {
+        List<String> tags = Arrays.asList("latest", "1.0", "1.1", "1.2", "1.3");
+        buildImage(tags.toArray(new String[tags.size()]));
+
+        daemon.setThroughput(IMAGE_SIZE * 4);
+
+        new ImagePusher(dockerClient, 4, new SystemStreamLog()).push(IMAGE_NAME, tags);
+
+        assertEquals(tags.size(), daemon.getPushes());
+        assertEquals(tags.size(), new HashSet<>(daemon.getPushedTags()).size());
+        assertTrue(daemon.getMaxConcurrentPushes() > 1);
+    }
+
+    @Test
+    public void testNoTags() throws Exception {
+        assertEquals(0, new ImagePusher(dockerClient, 4, new SystemStreamLog()).push(IMAGE_NAME,
+                Collections.<String> emptyList()));
+        assertEquals(0, daemon.getPushes());
+    }
+
+    private void buildImage(String... tags) throws Exception {
+        Path source = folder.newFolder().toPath();
+        Files.write(source.resolve("Dockerfile"), "FROM scratch\nCOPY . /\n".getBytes(StandardCharsets.UTF_8));
+        Files.write(source.resolve("data"), new byte[IMAGE_SIZE]);
+
+        BuildContext context = new BuildContext();
+        context.add(null, "Dockerfile", source.resolve("Dockerfile"), Files.size(source.resolve("Dockerfile")));
+        context.add(null, "data", source.resolve("data"), IMAGE_SIZE);
+
+        ContextArchive archive = new ContextArchive(context);
+        String imageId = dockerClient.buildImageCmd(archive.stream()).exec(new BuildImageResultCallback())
+                .awaitImageId();
+        archive.await();
+
+        for (String tag : tags) {
+            dockerClient.tagImageCmd(imageId, IMAGE_NAME, tag).exec();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package fr.hbis.maven.plugins.docker;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.core.DefaultDockerClientConfig;
+import com.github.dockerjava.core.DockerClientBuilder;
+import com.github.dockerjava.core.command.BuildImageResultCallback;
+
+public class ImageRemovalsTest {
+    private MockDockerDaemon daemon;
+    private DockerClient dockerClient;
+
+    @Before
+    public void setUp() throws Exception {
+        daemon = new MockDockerDaemon();
+        dockerClient = DockerClientBuilder.getInstance(DefaultDockerClientConfig.createDefaultConfigBuilder()
+                .withDockerHost(daemon.getDockerHost()).withDockerTlsVerify(false).build()).build();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        DockerClients.close(dockerClient);
+        daemon.close();
+    }
+
+    @Test
+    public void testRemove() throws Exception {
+        String concurrent = build("test", "concurrent", "other-build");
+        build("test", "previous", "build");
+        String current = build("test", "current", "build");
+        String other = build("other", "previous", "build");
+        build("other", "current", "build");
+
+        assertEquals(5, daemon.getImageCount());
+
+        ImageRemovals removals = new ImageRemovals("build", 2, new SystemStreamLog());
+        removals.add(current, "test");
+        removals.add(current, "test");
+
+        assertEquals(2, removals.remove(dockerClient));
+        assertEquals(3, daemon.getImageCount());
+        assertEquals(0, removals.remove(dockerClient));
+
+        dockerClient.inspectImageCmd(concurrent).exec();
+        dockerClient.inspectImageCmd(other).exec();
+        assertEquals(Collections.singleton("other:latest"), daemon.getTags());
+    }
+
+    private String build(String imageName, String content, String buildId) {
+        Map<String, String> labels = new LinkedHashMap<>();
+        labels.put(ImageRemovals.LABEL, imageName);
+        labels.put(ImageRemovals.BUILD_LABEL, buildId);
+
+        return dockerClient.buildImageCmd(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)))
+                .withTags(Collections.singleton(imageName)).withLabels(labels)
+                .exec(new BuildImageResultCallback()).awaitImageId();
+    }
+}
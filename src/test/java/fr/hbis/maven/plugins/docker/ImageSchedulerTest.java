@@ -0,0 +1,65 @@
+package fr.hbis.maven.plugins.docker;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.MojoExecution;
+import org.apache.maven.plugin.testing.AbstractMojoTestCase;
+import org.apache.maven.project.MavenProject;
+
+public class ImageSchedulerTest extends AbstractMojoTestCase {
+    public void testConfiguration() throws Exception {
+        List<ImageDefinition> images = getImages();
+
+        assertEquals(2, images.size());
+        assertEquals("test-build-images-app", images.get(0).getImageName());
+        assertEquals(Collections.singletonList("latest"), images.get(0).getEffectiveTags());
+        assertEquals(Collections.singletonList("1.0"), images.get(1).getImageTags());
+        assertEquals(1, images.get(1).getResources().size());
+    }
+
+    public void testDependencies() throws Exception {
+        List<ImageDefinition> images = getImages();
+        ImageScheduler scheduler = new ImageScheduler(images, 2);
+
+        assertEquals(Collections.singleton(images.get(1)), scheduler.getDependencies(images.get(0)));
+        assertTrue(scheduler.getDependencies(images.get(1)).isEmpty());
+    }
+
+    public void testExternalImages() throws Exception {
+        List<ImageDefinition> images = getImages();
+        ImageScheduler scheduler = new ImageScheduler(images, 2);
+
+        assertTrue(scheduler.getExternalImages(images.get(0)).isEmpty());
+        assertEquals(Collections.singletonList("alpine:3.6"), scheduler.getExternalImages(images.get(1)));
+    }
+
+    public void testRunOrder() throws Exception {
+        List<ImageDefinition> images = getImages();
+        final List<String> order = Collections.synchronizedList(new ArrayList<String>());
+
+        new ImageScheduler(images, 2).run(new ImageScheduler.Task() {
+            @Override
+            public void run(ImageDefinition image) throws Exception {
+                order.add(image.getImageName());
+            }
+        });
+
+        assertEquals(2, order.size());
+        assertEquals("test-build-images-base", order.get(0));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<ImageDefinition> getImages() throws Exception {
+        File pom = getTestFile("src/test/resources/pom-build-images.xml");
+        MavenProject project = new ProjectStub(pom);
+        MavenSession session = newMavenSession(project);
+        MojoExecution execution = newMojoExecution("build");
+        BuildMojo mojo = (BuildMojo) lookupConfiguredMojo(session, execution);
+
+        return (List<ImageDefinition>) getVariableValueFromObject(mojo, "images");
+    }
+}
@@ -0,0 +1,89 @@
+package fr.hbis.maven.plugins.docker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.dockerjava.api.command.InspectImageResponse;
+
+public class ImageSizeTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testFromHistory() {
+        ImageSize size = ImageSize.fromHistory(Arrays.asList(
+                new InspectImageResponse().withId("sha256:cccccccccccccccc").withParent("sha256:bbbbbbbbbbbbbbbb")
+                        .withSize(0L).withVirtualSize(1500L),
+                new InspectImageResponse().withId("sha256:bbbbbbbbbbbbbbbb").withParent("sha256:aaaaaaaaaaaaaaaa")
+                        .withSize(0L).withVirtualSize(1000L),
+                new InspectImageResponse().withId("sha256:aaaaaaaaaaaaaaaa").withSize(400L)));
+
+        assertEquals(1500, size.getSize());
+        assertEquals(3, size.getLayers().size());
+        assertEquals("base aaaaaaaaaaaa", size.getLayers().get(0).getCreatedBy());
+        assertEquals(400, size.getLayers().get(0).getSize());
+        assertEquals("bbbbbbbbbbbb", size.getLayers().get(1).getCreatedBy());
+        assertEquals(600, size.getLayers().get(1).getSize());
+        assertEquals(500, size.getLayers().get(2).getSize());
+        assertEquals(600, size.getLargestLayer().getSize());
+    }
+
+    @Test
+    public void testReadWrite() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("target/image.size.json");
+
+        assertNull(ImageSize.read(file));
+
+        new ImageSize(300, Arrays.asList(new ImageSize.Layer("base a", 100), new ImageSize.Layer("COPY b", 200)))
+                .write(file);
+
+        ImageSize size = ImageSize.read(file);
+
+        assertEquals(300, size.getSize());
+        assertEquals(2, size.getLayers().size());
+        assertEquals("COPY b", size.getLayers().get(1).getCreatedBy());
+        assertEquals(200, size.getLayers().get(1).getSize());
+    }
+
+    @Test
+    public void testParseFormat() {
+        assertEquals(512, ImageSize.parse("512"));
+        assertEquals(2048, ImageSize.parse("2k"));
+        assertEquals(300L * 1024 * 1024, ImageSize.parse("300MB"));
+        assertEquals(3L * 1024 * 1024 * 1024 / 2, ImageSize.parse("1.5g"));
+        assertEquals("512 B", ImageSize.format(512));
+        assertEquals("1.5 MB", ImageSize.format(3L * 1024 * 1024 / 2));
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void testParseInvalid() {
+        ImageSize.parse("big");
+    }
+
+    @Test
+    public void testBudget() {
+        ImageSize previous = new ImageSize(1000, Arrays.asList(new ImageSize.Layer("base a", 1000)));
+        ImageSize current = new ImageSize(1300,
+                Arrays.asList(new ImageSize.Layer("base a", 1000), new ImageSize.Layer("COPY b", 300)));
+
+        assertTrue(new SizeBudget(0, 0, 0).check(current, previous).isEmpty());
+        assertTrue(new SizeBudget(2000, 1000, 50).check(current, previous).isEmpty());
+        assertTrue(new SizeBudget(0, 0, 10).check(current, null).isEmpty());
+
+        List<String> violations = new SizeBudget(1200, 500, 10).check(current, previous);
+
+        assertEquals(3, violations.size());
+        assertTrue(violations.get(0).startsWith("image size"));
+        assertTrue(violations.get(1).endsWith(": base a"));
+        assertTrue(violations.get(2).startsWith("image grew by 30%"));
+    }
+}
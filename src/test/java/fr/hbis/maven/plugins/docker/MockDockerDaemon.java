@@ -0,0 +1,660 @@
+package fr.hbis.maven.plugins.docker;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+class MockDockerDaemon implements Closeable {
+    private static final Pattern VERSION_PREFIX = Pattern.compile("^/v[0-9.]+(/.*)$");
+    private static final Pattern IMAGE_PATH = Pattern.compile("^/images/(.+?)(?:/(json|tag|push|get))?$");
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Map<String, MockImage> images = new LinkedHashMap<>();
+    private final AtomicInteger builds = new AtomicInteger();
+    private final AtomicInteger pushes = new AtomicInteger();
+    private final AtomicInteger activePushes = new AtomicInteger();
+    private final AtomicInteger maxActivePushes = new AtomicInteger();
+    private final List<String> pushedTags = Collections.synchronizedList(new ArrayList<String>());
+    private final AtomicLong bytesReceived = new AtomicLong();
+    private final Set<String> cacheFrom = Collections.synchronizedSet(new LinkedHashSet<String>());
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    private volatile long latency;
+    private volatile long throughput;
+
+    MockDockerDaemon() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        executor = Executors.newCachedThreadPool();
+
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                try {
+                    dispatch(exchange);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    exchange.close();
+                }
+            }
+        });
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    String getDockerHost() {
+        return "tcp://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+
+    void setLatency(long latency) {
+        this.latency = latency;
+    }
+
+    void setThroughput(long throughput) {
+        this.throughput = throughput;
+    }
+
+    int getBuilds() {
+        return builds.get();
+    }
+
+    int getPushes() {
+        return pushes.get();
+    }
+
+    List<String> getPushedTags() {
+        return pushedTags;
+    }
+
+    int getMaxConcurrentPushes() {
+        return maxActivePushes.get();
+    }
+
+    long getBytesReceived() {
+        return bytesReceived.get();
+    }
+
+    Set<String> getCacheFrom() {
+        return cacheFrom;
+    }
+
+    synchronized Set<String> getTags() {
+        Set<String> tags = new LinkedHashSet<>();
+
+        for (MockImage image : images.values()) {
+            tags.addAll(image.tags);
+        }
+
+        return tags;
+    }
+
+    synchronized int getImageCount() {
+        return images.size();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void dispatch(HttpExchange exchange) throws IOException, InterruptedException {
+        String path = exchange.getRequestURI().getPath();
+        String method = exchange.getRequestMethod();
+        Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+
+        Matcher versioned = VERSION_PREFIX.matcher(path);
+        if (versioned.matches()) {
+            path = versioned.group(1);
+        }
+
+        if (latency > 0) {
+            Thread.sleep(latency);
+        }
+
+        if (path.equals("/_ping")) {
+            sendText(exchange, 200, "OK");
+        } else if (path.equals("/version") || path.equals("/info")) {
+            ObjectNode version = mapper.createObjectNode();
+            version.put("Version", "17.06.0-mock");
+            version.put("ApiVersion", "1.30");
+            version.put("Os", "linux");
+            version.put("Arch", "amd64");
+
+            sendJson(exchange, 200, version);
+        } else if (path.equals("/build") && method.equals("POST")) {
+            build(exchange, query);
+        } else if (path.equals("/images/load") && method.equals("POST")) {
+            load(exchange);
+        } else if (path.equals("/images/create") && method.equals("POST")) {
+            pull(exchange, query);
+        } else if (path.equals("/images/json") && method.equals("GET")) {
+            list(exchange, query);
+        } else {
+            Matcher matcher = IMAGE_PATH.matcher(path);
+
+            if (!matcher.matches()) {
+                sendError(exchange, 404, "page not found");
+            } else if (matcher.group(2) == null && method.equals("DELETE")) {
+                remove(exchange, matcher.group(1));
+            } else if ("json".equals(matcher.group(2)) && method.equals("GET")) {
+                inspect(exchange, matcher.group(1));
+            } else if ("tag".equals(matcher.group(2)) && method.equals("POST")) {
+                tag(exchange, matcher.group(1), query);
+            } else if ("push".equals(matcher.group(2)) && method.equals("POST")) {
+                push(exchange, matcher.group(1), query);
+            } else if ("get".equals(matcher.group(2)) && method.equals("GET")) {
+                save(exchange, matcher.group(1), query);
+            } else {
+                sendError(exchange, 404, "page not found");
+            }
+        }
+    }
+
+    private void build(HttpExchange exchange, Map<String, String> query) throws IOException, InterruptedException {
+        MessageDigest digest = sha256();
+        long start = System.nanoTime();
+        long size = 0;
+
+        try (InputStream input = exchange.getRequestBody()) {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            int read;
+
+            while ((read = input.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+                size += read;
+
+                throttle(size, start);
+            }
+        }
+
+        bytesReceived.addAndGet(size);
+        builds.incrementAndGet();
+
+        Map<String, String> labels = new LinkedHashMap<>();
+
+        if (query.containsKey("labels")) {
+            JsonNode node = mapper.readTree(query.get("labels"));
+
+            for (Map.Entry<String, JsonNode> label : iterable(node)) {
+                labels.put(label.getKey(), label.getValue().asText());
+            }
+        }
+
+        if (query.containsKey("cachefrom")) {
+            for (JsonNode image : mapper.readTree(query.get("cachefrom"))) {
+                cacheFrom.add(image.asText());
+            }
+        }
+
+        digest.update(bytes(labels.toString()));
+
+        MockImage image = new MockImage("sha256:" + toHex(digest.digest()), size, labels);
+
+        synchronized (this) {
+            MockImage existing = images.get(image.id);
+
+            if (existing == null) {
+                images.put(image.id, image);
+            } else {
+                image = existing;
+            }
+
+            if (query.containsKey("t")) {
+                addTag(image, query.get("t"));
+            }
+        }
+
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, 0);
+
+        try (OutputStream output = exchange.getResponseBody()) {
+            writeItem(output, streamItem("Step 1/1 : COPY . /\n"));
+            writeItem(output, streamItem(" ---> " + image.getShortId() + "\n"));
+            writeItem(output, streamItem("Successfully built " + image.getShortId() + "\n"));
+        }
+    }
+
+    private void pull(HttpExchange exchange, Map<String, String> query) throws IOException {
+        String reference = query.get("fromImage") + ":" + (query.containsKey("tag") ? query.get("tag") : "latest");
+
+        synchronized (this) {
+            if (find(reference) == null) {
+                MockImage image = new MockImage("sha256:" + toHex(sha256().digest(bytes(reference))), 0,
+                        Collections.<String, String>emptyMap());
+
+                images.put(image.id, image);
+                addTag(image, reference);
+            }
+        }
+
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, 0);
+
+        try (OutputStream output = exchange.getResponseBody()) {
+            writeItem(output, statusItem("Pulling from " + query.get("fromImage")));
+            writeItem(output, statusItem("Status: Downloaded newer image for " + reference));
+        }
+    }
+
+    private void list(HttpExchange exchange, Map<String, String> query) throws IOException {
+        Set<String> filters = new LinkedHashSet<>();
+        boolean dangling = false;
+
+        if (query.containsKey("filters")) {
+            JsonNode node = mapper.readTree(query.get("filters"));
+
+            for (JsonNode filter : node.path("label")) {
+                filters.add(filter.asText());
+            }
+
+            for (JsonNode filter : node.path("dangling")) {
+                dangling |= filter.asBoolean() || filter.asText().equals("true");
+            }
+        }
+
+        ArrayNode result = mapper.createArrayNode();
+
+        synchronized (this) {
+            for (MockImage image : images.values()) {
+                Set<String> labels = new LinkedHashSet<>();
+
+                for (Map.Entry<String, String> label : image.labels.entrySet()) {
+                    labels.add(label.getKey() + "=" + label.getValue());
+                    labels.add(label.getKey());
+                }
+
+                if (labels.containsAll(filters) && (!dangling || image.tags.isEmpty())) {
+                    ObjectNode node = result.addObject();
+                    node.put("Id", image.id);
+                    node.put("ParentId", "");
+                    node.put("Size", image.size);
+                    node.put("VirtualSize", image.size);
+                    node.putPOJO("RepoTags", new ArrayList<>(image.tags));
+                    node.putPOJO("Labels", image.labels);
+                }
+            }
+        }
+
+        sendJson(exchange, 200, result);
+    }
+
+    private void inspect(HttpExchange exchange, String name) throws IOException {
+        ObjectNode node = mapper.createObjectNode();
+
+        synchronized (this) {
+            MockImage image = find(name);
+
+            if (image == null) {
+                sendError(exchange, 404, "No such image: " + name);
+
+                return;
+            }
+
+            node.put("Id", image.id);
+            node.put("Parent", "");
+            node.put("Size", image.size);
+            node.put("VirtualSize", image.size);
+            node.put("Os", "linux");
+            node.put("Architecture", "amd64");
+            node.putPOJO("RepoTags", new ArrayList<>(image.tags));
+            node.with("Config").putPOJO("Labels", image.labels);
+        }
+
+        sendJson(exchange, 200, node);
+    }
+
+    private void tag(HttpExchange exchange, String name, Map<String, String> query) throws IOException {
+        synchronized (this) {
+            MockImage image = find(name);
+
+            if (image == null) {
+                sendError(exchange, 404, "No such image: " + name);
+
+                return;
+            }
+
+            addTag(image, query.get("repo") + ":" + (query.containsKey("tag") ? query.get("tag") : "latest"));
+        }
+
+        exchange.sendResponseHeaders(201, -1);
+    }
+
+    private void push(HttpExchange exchange, String name, Map<String, String> query)
+            throws IOException, InterruptedException {
+        String tag = query.containsKey("tag") && !query.get("tag").isEmpty() ? query.get("tag") : "latest";
+        MockImage image;
+
+        synchronized (this) {
+            image = find(name + ":" + tag);
+        }
+
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, 0);
+
+        try (OutputStream output = exchange.getResponseBody()) {
+            writeItem(output, statusItem("The push refers to a repository [" + name + "]"));
+
+            if (image == null) {
+                ObjectNode error = mapper.createObjectNode();
+                error.put("error", "An image does not exist locally with the tag: " + name);
+                error.with("errorDetail").put("message", "An image does not exist locally with the tag: " + name);
+
+                writeItem(output, error);
+
+                return;
+            }
+
+            int active = activePushes.incrementAndGet();
+
+            try {
+                for (int max = maxActivePushes.get(); active > max; max = maxActivePushes.get()) {
+                    if (maxActivePushes.compareAndSet(max, active)) {
+                        break;
+                    }
+                }
+
+                throttle(image.size, System.nanoTime());
+            } finally {
+                activePushes.decrementAndGet();
+            }
+
+            pushes.incrementAndGet();
+            pushedTags.add(name + ":" + tag);
+
+            ObjectNode progress = statusItem("Pushed");
+            progress.put("id", image.getShortId());
+            progress.with("progressDetail").put("current", image.size).put("total", image.size);
+
+            writeItem(output, progress);
+            writeItem(output, statusItem(tag + ": digest: " + image.id + " size: " + image.size));
+        }
+    }
+
+    private void save(HttpExchange exchange, String name, Map<String, String> query) throws IOException {
+        String reference = query.containsKey("tag") ? name + ":" + query.get("tag") : name;
+        ObjectNode node = mapper.createObjectNode();
+
+        synchronized (this) {
+            MockImage image = find(reference);
+
+            if (image == null) {
+                sendError(exchange, 404, "No such image: " + reference);
+
+                return;
+            }
+
+            node.put("Id", image.id);
+            node.put("Size", image.size);
+            node.put("Tag", getReference(reference));
+            node.putPOJO("Labels", image.labels);
+        }
+
+        byte[] body = mapper.writeValueAsBytes(node);
+
+        exchange.getResponseHeaders().set("Content-Type", "application/x-tar");
+        exchange.sendResponseHeaders(200, body.length);
+
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(body);
+        }
+    }
+
+    private void load(HttpExchange exchange) throws IOException {
+        JsonNode node;
+
+        try (InputStream input = exchange.getRequestBody()) {
+            node = mapper.readTree(input);
+        }
+
+        Map<String, String> labels = new LinkedHashMap<>();
+
+        for (Map.Entry<String, JsonNode> label : iterable(node.path("Labels"))) {
+            labels.put(label.getKey(), label.getValue().asText());
+        }
+
+        synchronized (this) {
+            MockImage image = images.get(node.path("Id").asText());
+
+            if (image == null) {
+                image = new MockImage(node.path("Id").asText(), node.path("Size").asLong(), labels);
+                images.put(image.id, image);
+            }
+
+            addTag(image, node.path("Tag").asText());
+        }
+
+        sendJson(exchange, 200, statusItem("Loaded image: " + node.path("Tag").asText()));
+    }
+
+    private void remove(HttpExchange exchange, String name) throws IOException {
+        ArrayNode result = mapper.createArrayNode();
+
+        synchronized (this) {
+            MockImage image = find(name);
+
+            if (image == null) {
+                sendError(exchange, 404, "No such image: " + name);
+
+                return;
+            }
+
+            String reference = getReference(name);
+
+            if (image.tags.remove(reference)) {
+                result.addObject().put("Untagged", reference);
+            } else {
+                for (String tag : image.tags) {
+                    result.addObject().put("Untagged", tag);
+                }
+
+                image.tags.clear();
+            }
+
+            if (image.tags.isEmpty()) {
+                images.remove(image.id);
+                result.addObject().put("Deleted", image.id);
+            }
+        }
+
+        sendJson(exchange, 200, result);
+    }
+
+    private void addTag(MockImage image, String reference) {
+        String tag = getReference(reference);
+
+        for (MockImage other : images.values()) {
+            other.tags.remove(tag);
+        }
+
+        image.tags.add(tag);
+    }
+
+    private MockImage find(String name) {
+        String id = name.startsWith("sha256:") ? name : "sha256:" + name;
+
+        for (MockImage image : images.values()) {
+            if (image.id.equals(id) || (name.length() >= 12 && image.id.startsWith(id))) {
+                return image;
+            }
+        }
+
+        String reference = getReference(name);
+
+        for (MockImage image : images.values()) {
+            if (image.tags.contains(reference)) {
+                return image;
+            }
+        }
+
+        return null;
+    }
+
+    private void throttle(long bytes, long startNanos) throws InterruptedException {
+        long rate = throughput;
+
+        if (rate <= 0)
+            return;
+
+        long expected = bytes * 1000 / rate;
+        long elapsed = (System.nanoTime() - startNanos) / 1000000;
+
+        if (expected > elapsed) {
+            Thread.sleep(expected - elapsed);
+        }
+    }
+
+    private ObjectNode streamItem(String stream) {
+        ObjectNode item = mapper.createObjectNode();
+        item.put("stream", stream);
+
+        return item;
+    }
+
+    private ObjectNode statusItem(String status) {
+        ObjectNode item = mapper.createObjectNode();
+        item.put("status", status);
+
+        return item;
+    }
+
+    private void writeItem(OutputStream output, JsonNode item) throws IOException {
+        output.write(bytes(mapper.writeValueAsString(item) + "\r\n"));
+        output.flush();
+    }
+
+    private void sendJson(HttpExchange exchange, int status, JsonNode document) throws IOException {
+        byte[] body = mapper.writeValueAsBytes(document);
+
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length);
+
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(body);
+        }
+    }
+
+    private void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        ObjectNode error = mapper.createObjectNode();
+        error.put("message", message);
+
+        sendJson(exchange, status, error);
+    }
+
+    private static void sendText(HttpExchange exchange, int status, String text) throws IOException {
+        byte[] body = bytes(text);
+
+        exchange.getResponseHeaders().set("Content-Type", "text/plain");
+        exchange.sendResponseHeaders(status, body.length);
+
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(body);
+        }
+    }
+
+    private static Map<String, String> parseQuery(String query) throws IOException {
+        Map<String, String> parameters = new LinkedHashMap<>();
+
+        if (query == null || query.isEmpty())
+            return parameters;
+
+        for (String parameter : query.split("&")) {
+            int index = parameter.indexOf('=');
+
+            if (index < 0) {
+                parameters.put(URLDecoder.decode(parameter, "UTF-8"), "");
+            } else {
+                parameters.put(URLDecoder.decode(parameter.substring(0, index), "UTF-8"),
+                        URLDecoder.decode(parameter.substring(index + 1), "UTF-8"));
+            }
+        }
+
+        return parameters;
+    }
+
+    private static String getReference(String name) {
+        int slash = name.lastIndexOf('/');
+
+        return name.indexOf(':', slash + 1) < 0 ? name + ":latest" : name;
+    }
+
+    private static Iterable<Map.Entry<String, JsonNode>> iterable(JsonNode node) {
+        List<Map.Entry<String, JsonNode>> fields = new ArrayList<>();
+
+        for (Iterator<Map.Entry<String, JsonNode>> iterator = node.fields(); iterator.hasNext();) {
+            fields.add(iterator.next());
+        }
+
+        return fields;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder builder = new StringBuilder();
+
+        for (byte b : bytes) {
+            builder.append(String.format("%02x", b));
+        }
+
+        return builder.toString();
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static class MockImage {
+        private final String id;
+        private final long size;
+        private final Map<String, String> labels;
+        private final Set<String> tags = new LinkedHashSet<>();
+
+        MockImage(String id, long size, Map<String, String> labels) {
+            this.id = id;
+            this.size = size;
+            this.labels = labels;
+        }
+
+        String getShortId() {
+            return id.substring("sha256:".length(), "sha256:".length() + 12);
+        }
+    }
+}
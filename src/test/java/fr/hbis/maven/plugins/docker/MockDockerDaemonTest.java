@@ -0,0 +1,182 @@
+package fr.hbis.maven.plugins.docker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.exception.DockerClientException;
+import com.github.dockerjava.api.exception.NotFoundException;
+import com.github.dockerjava.core.DefaultDockerClientConfig;
+import com.github.dockerjava.core.DockerClientBuilder;
+import com.github.dockerjava.core.command.BuildImageResultCallback;
+import com.github.dockerjava.core.command.PullImageResultCallback;
+import com.github.dockerjava.jaxrs.JerseyDockerCmdExecFactory;
+
+public class MockDockerDaemonTest {
+    private static final int CONTEXTS = 32;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private MockDockerDaemon daemon;
+    private DockerClient dockerClient;
+
+    @Before
+    public void setUp() throws Exception {
+        daemon = new MockDockerDaemon();
+        dockerClient = DockerClientBuilder
+                .getInstance(DefaultDockerClientConfig.createDefaultConfigBuilder()
+                        .withDockerHost(daemon.getDockerHost()).withDockerTlsVerify(false).build())
+                .withDockerCmdExecFactory(
+                        new JerseyDockerCmdExecFactory().withMaxTotalConnections(8).withMaxPerRouteConnections(8))
+                .build();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        DockerClients.close(dockerClient);
+        daemon.close();
+    }
+
+    @Test
+    public void testBuildTagPushRemove() throws Exception {
+        BuildContext context = createContext("image", 1024);
+        ContextArchive archive = new ContextArchive(context);
+
+        String imageId = dockerClient.buildImageCmd(archive.stream())
+                .withLabels(Collections.singletonMap(ContextFingerprint.LABEL, "fingerprint"))
+                .exec(new BuildImageResultCallback()).awaitImageId();
+        archive.await();
+
+        assertEquals(12, imageId.length());
+        assertEquals(archive.getBytesWritten(), daemon.getBytesReceived());
+
+        dockerClient.tagImageCmd(imageId, "localhost:5000/test", "latest").exec();
+        dockerClient.tagImageCmd(imageId, "localhost:5000/test", "1.0").exec();
+
+        assertEquals(Arrays.asList("localhost:5000/test:latest", "localhost:5000/test:1.0"),
+                new ArrayList<>(daemon.getTags()));
+
+        new ImagePusher(dockerClient, 2, new SystemStreamLog()).push("localhost:5000/test",
+                Arrays.asList("latest", "1.0"));
+
+        assertEquals(2, daemon.getPushes());
+
+        assertEquals("fingerprint",
+                dockerClient.inspectImageCmd(imageId).exec().getConfig().getLabels().get(ContextFingerprint.LABEL));
+        assertTrue(ImageSize.inspect(dockerClient, imageId).getSize() > 0);
+
+        dockerClient.removeImageCmd(imageId).withForce(true).exec();
+
+        assertEquals(0, daemon.getImageCount());
+    }
+
+    @Test(expected = NotFoundException.class)
+    public void testInspectMissing() {
+        dockerClient.inspectImageCmd("missing").exec();
+    }
+
+    @Test(expected = DockerClientException.class)
+    public void testPushMissing() throws Exception {
+        new ImagePusher(dockerClient, 1, new SystemStreamLog()).push("missing", Arrays.asList("latest"));
+    }
+
+    @Test
+    public void testPull() throws Exception {
+        dockerClient.pullImageCmd("alpine").withTag("3.6").exec(new PullImageResultCallback()).awaitSuccess();
+
+        assertTrue(daemon.getTags().contains("alpine:3.6"));
+        dockerClient.inspectImageCmd("alpine:3.6").exec();
+    }
+
+    @Test
+    public void testLatencyAndThroughput() throws Exception {
+        daemon.setLatency(100);
+        daemon.setThroughput(1024 * 1024);
+
+        long start = System.nanoTime();
+        dockerClient.pingCmd().exec();
+
+        assertTrue((System.nanoTime() - start) / 1000000 >= 100);
+
+        daemon.setLatency(0);
+
+        ContextArchive archive = new ContextArchive(createContext("large", 512 * 1024));
+
+        start = System.nanoTime();
+        dockerClient.buildImageCmd(archive.stream()).exec(new BuildImageResultCallback()).awaitImageId();
+        archive.await();
+
+        assertTrue((System.nanoTime() - start) / 1000000 >= 400);
+    }
+
+    @Test
+    public void testConcurrentBuilds() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<Long>> futures = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < CONTEXTS; i++) {
+                final BuildContext context = createContext("context" + i, 64 * 1024);
+
+                futures.add(executor.submit(new Callable<Long>() {
+                    @Override
+                    public Long call() throws Exception {
+                        ContextArchive archive = new ContextArchive(context);
+
+                        dockerClient.buildImageCmd(archive.stream()).exec(new BuildImageResultCallback())
+                                .awaitImageId();
+                        archive.await();
+
+                        return archive.getBytesWritten();
+                    }
+                }));
+            }
+
+            long bytes = 0;
+
+            for (Future<Long> future : futures) {
+                bytes += future.get();
+            }
+
+            assertEquals(CONTEXTS, daemon.getBuilds());
+            assertEquals(bytes, daemon.getBytesReceived());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private BuildContext createContext(String name, int size) throws Exception {
+        Path source = folder.newFolder(name).toPath();
+        Files.write(source.resolve("Dockerfile"), "FROM scratch\nCOPY . /\n".getBytes(StandardCharsets.UTF_8));
+
+        byte[] content = new byte[size];
+        Arrays.fill(content, (byte) name.hashCode());
+        Files.write(source.resolve("data"), content);
+
+        BuildContext context = new BuildContext();
+        context.add(null, "Dockerfile", source.resolve("Dockerfile"), Files.size(source.resolve("Dockerfile")));
+        context.add(null, "data", source.resolve("data"), size);
+
+        return context;
+    }
+}
@@ -0,0 +1,118 @@
+package fr.hbis.maven.plugins.docker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.maven.model.Build;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.Plugin;
+import org.apache.maven.model.PluginExecution;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.xml.Xpp3DomBuilder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ModuleImagesTest {
+    private static final String GROUP_ID = "fr.hbis.maven.plugins";
+    private static final String ARTIFACT_ID = "docker-maven-plugin";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testPluginConfiguration() throws Exception {
+        Plugin plugin = plugin("<configuration><directory>src/main/docker</directory><imageName>app</imageName>"
+                + "<imageTags><imageTag>1.0</imageTag></imageTags><push>true</push><resources><resource>"
+                + "<directory>target</directory><targetPath>/app</targetPath><includes><include>*.jar</include>"
+                + "</includes></resource></resources></configuration>");
+
+        MavenProject project = project(plugin);
+        List<ImageDefinition> definitions = ModuleImages.read(project, GROUP_ID, ARTIFACT_ID);
+
+        assertEquals(1, definitions.size());
+
+        ImageDefinition definition = definitions.get(0);
+        assertSame(project, definition.getProject());
+        assertEquals("app", definition.getImageName());
+        assertEquals(Collections.singletonList("1.0"), definition.getImageTags());
+        assertTrue(definition.isPush());
+        assertEquals(new File(project.getBasedir(), "src/main/docker"), definition.getDirectory());
+        assertEquals(new File(project.getBasedir(), "target").toString(),
+                definition.getResources().get(0).getDirectory());
+        assertEquals("/app", definition.getResources().get(0).getTargetPath());
+        assertEquals(Collections.singletonList("*.jar"), definition.getResources().get(0).getIncludes());
+    }
+
+    @Test
+    public void testExecutionConfiguration() throws Exception {
+        Plugin plugin = plugin("<configuration><directory>docker</directory></configuration>");
+        plugin.addExecution(execution("build", "<configuration><images><image><directory>a</directory>"
+                + "<imageName>a</imageName></image><image><directory>b</directory><imageName>b</imageName>"
+                + "</image></images></configuration>"));
+        plugin.addExecution(execution("other", "<configuration><imageName>ignored</imageName></configuration>"));
+
+        List<ImageDefinition> definitions = ModuleImages.read(project(plugin), GROUP_ID, ARTIFACT_ID);
+
+        assertEquals(2, definitions.size());
+        assertEquals("a", definitions.get(0).getImageName());
+        assertEquals("b", definitions.get(1).getImageName());
+    }
+
+    @Test
+    public void testSkippedModule() throws Exception {
+        Plugin plugin = plugin("<configuration><skipDocker>true</skipDocker><directory>docker</directory>"
+                + "<imageName>app</imageName></configuration>");
+
+        assertTrue(ModuleImages.read(project(plugin), GROUP_ID, ARTIFACT_ID).isEmpty());
+    }
+
+    @Test
+    public void testIgnoredOptions() throws Exception {
+        Plugin plugin = plugin("<configuration><directory>docker</directory><imageName>app</imageName>"
+                + "<buildNoCache>true</buildNoCache><stagingMode>link</stagingMode></configuration>");
+
+        assertEquals(Collections.singleton("buildNoCache"), ModuleImages.getIgnoredOptions(project(plugin), GROUP_ID,
+                ARTIFACT_ID, Xpp3DomBuilder.build(new StringReader(
+                        "<configuration><stagingMode>link</stagingMode></configuration>"))));
+    }
+
+    private MavenProject project(Plugin plugin) throws Exception {
+        Model model = new Model();
+        model.setGroupId("test");
+        model.setArtifactId("module");
+        model.setVersion("1.0");
+        model.setBuild(new Build());
+        model.getBuild().addPlugin(plugin);
+
+        MavenProject project = new MavenProject(model);
+        project.setFile(folder.newFile("pom.xml"));
+
+        return project;
+    }
+
+    private static Plugin plugin(String configuration) throws Exception {
+        Plugin plugin = new Plugin();
+        plugin.setGroupId(GROUP_ID);
+        plugin.setArtifactId(ARTIFACT_ID);
+        plugin.setConfiguration(Xpp3DomBuilder.build(new StringReader(configuration)));
+
+        return plugin;
+    }
+
+    private static PluginExecution execution(String goal, String configuration) throws Exception {
+        PluginExecution execution = new PluginExecution();
+        execution.setId(goal);
+        execution.setGoals(Arrays.asList(goal));
+        execution.setConfiguration(Xpp3DomBuilder.build(new StringReader(configuration)));
+
+        return execution;
+    }
+}
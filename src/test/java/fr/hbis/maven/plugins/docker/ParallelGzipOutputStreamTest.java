@@ -0,0 +1,77 @@
+package fr.hbis.maven.plugins.docker;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.compress.utils.IOUtils;
+import org.junit.Test;
+
+public class ParallelGzipOutputStreamTest {
+    @Test
+    public void testRoundTrip() throws Exception {
+        ByteArrayOutputStream input = new ByteArrayOutputStream();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        Random random = new Random(42);
+
+        try (ParallelGzipOutputStream gzip = new ParallelGzipOutputStream(output, 6, 4)) {
+            for (int i = 0; i < 40; i++) {
+                byte[] chunk;
+
+                if (i % 3 == 0) {
+                    chunk = new byte[random.nextInt(100000)];
+                    random.nextBytes(chunk);
+                    gzip.setLevel(Deflater.NO_COMPRESSION);
+                } else {
+                    chunk = ("line " + i + " of some compressible text\n").getBytes(StandardCharsets.UTF_8);
+                    chunk = repeat(chunk, random.nextInt(20000));
+                    gzip.setLevel(6);
+                }
+
+                gzip.write(chunk);
+                input.write(chunk);
+            }
+
+            gzip.write('x');
+            input.write('x');
+        }
+
+        assertArrayEquals(input.toByteArray(), decompress(output.toByteArray()));
+        assertTrue(output.size() < input.size());
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        ParallelGzipOutputStream gzip = new ParallelGzipOutputStream(output, 6, 2);
+        gzip.close();
+
+        assertEquals(0, decompress(output.toByteArray()).length);
+        assertEquals(output.size(), gzip.getCompressedBytes());
+    }
+
+    private static byte[] repeat(byte[] chunk, int count) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        for (int i = 0; i < count / chunk.length + 1; i++) {
+            output.write(chunk, 0, chunk.length);
+        }
+
+        return output.toByteArray();
+    }
+
+    private static byte[] decompress(byte[] content) throws IOException {
+        try (GZIPInputStream input = new GZIPInputStream(new ByteArrayInputStream(content))) {
+            return IOUtils.toByteArray(input);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package fr.hbis.maven.plugins.docker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ProjectLayersTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testLayers() throws Exception {
+        Path classes = folder.newFolder("classes").toPath();
+        write(classes.resolve("com/example/App.class"));
+        write(classes.resolve("application.properties"));
+
+        Artifact release = artifact("org.example", "lib", "1.0",
+                write(folder.getRoot().toPath().resolve("a/lib-1.0.jar")));
+        Artifact other = artifact("com.other", "lib", "1.0",
+                write(folder.getRoot().toPath().resolve("b/lib-1.0.jar")));
+        Artifact snapshot = artifact("org.example", "core", "2.0-SNAPSHOT",
+                write(folder.getRoot().toPath().resolve("c/core-2.0-SNAPSHOT.jar")));
+
+        BuildContext context = new BuildContext();
+        ProjectLayers layers = new ProjectLayers(Arrays.asList(release, other, snapshot), classes.toFile(), "/app");
+        layers.addTo(context);
+
+        assertTrue(context.getEntries().containsKey("layers/dependencies/lib-1.0.jar"));
+        assertTrue(context.getEntries().containsKey("layers/dependencies/com.other.lib-1.0.jar"));
+        assertTrue(context.getEntries().containsKey("layers/snapshot-dependencies/core-2.0-SNAPSHOT.jar"));
+        assertTrue(context.getEntries().containsKey("layers/resources/application.properties"));
+        assertTrue(context.getEntries().containsKey("layers/classes/com/example/App.class"));
+        assertEquals(5, context.getFileCount());
+
+        assertEquals(Arrays.asList("COPY layers/dependencies/ /app/lib/",
+                "COPY layers/snapshot-dependencies/ /app/lib/", "COPY layers/resources/ /app/classes/",
+                "COPY layers/classes/ /app/classes/"), layers.getInstructions());
+    }
+
+    @Test
+    public void testEmptyLayersAreOmitted() throws Exception {
+        Path classes = folder.newFolder("classes").toPath();
+        write(classes.resolve("com/example/App.class"));
+
+        ProjectLayers layers = new ProjectLayers(Arrays.<Artifact>asList(), classes.toFile(), "/");
+        layers.addTo(new BuildContext());
+
+        assertEquals(Arrays.asList("COPY layers/classes/ /classes/"), layers.getInstructions());
+    }
+
+    private static Artifact artifact(String groupId, String artifactId, String version, File file) {
+        Artifact artifact = new DefaultArtifact(groupId, artifactId, version, "runtime", "jar", null,
+                new DefaultArtifactHandler("jar"));
+        artifact.setFile(file);
+
+        return artifact;
+    }
+
+    private static File write(Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.write(file, new byte[] { 1, 2, 3 });
+
+        return file.toFile();
+    }
+}
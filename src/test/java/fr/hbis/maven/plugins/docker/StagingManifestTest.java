@@ -0,0 +1,93 @@
+package fr.hbis.maven.plugins.docker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class StagingManifestTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path sourcePath;
+    private Path stagingPath;
+    private Path manifestPath;
+
+    @Before
+    public void setUp() throws Exception {
+        sourcePath = folder.newFolder("source").toPath();
+        stagingPath = folder.newFolder("docker").toPath();
+        manifestPath = folder.getRoot().toPath().resolve("docker.manifest");
+    }
+
+    @Test
+    public void testUnchangedFilesAreSkipped() throws Exception {
+        write("a", "first");
+        write("dir/b", "second");
+
+        StagingManifest manifest = stage("a", "dir/b");
+        assertEquals(2, manifest.getCopiedFiles());
+        assertEquals(0, manifest.getSkippedFiles());
+
+        manifest = stage("a", "dir/b");
+        assertEquals(0, manifest.getCopiedFiles());
+        assertEquals(2, manifest.getSkippedFiles());
+    }
+
+    @Test
+    public void testChangedFilesAreCopied() throws Exception {
+        write("a", "first");
+        stage("a");
+
+        write("a", "changed");
+        StagingManifest manifest = stage("a");
+
+        assertEquals(1, manifest.getCopiedFiles());
+        assertEquals("changed", new String(Files.readAllBytes(stagingPath.resolve("a")), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testRemovedFilesAreDeleted() throws Exception {
+        write("a", "first");
+        write("dir/b", "second");
+        stage("a", "dir/b");
+
+        StagingManifest manifest = stage("a");
+
+        assertEquals(1, manifest.getRemovedFiles());
+        assertTrue(Files.exists(stagingPath.resolve("a")));
+        assertFalse(Files.exists(stagingPath.resolve("dir")));
+    }
+
+    private StagingManifest stage(String... files) throws IOException {
+        StagingManifest manifest = new StagingManifest(manifestPath, stagingPath);
+        manifest.load();
+
+        BuildContext context = new BuildContext();
+
+        for (String file : files) {
+            context.add(null, file, sourcePath.resolve(file));
+        }
+
+        new ContextStager(stagingPath, manifest, StagingMode.COPY, 2).stage(context);
+        manifest.save();
+
+        return manifest;
+    }
+
+    private void write(String file, String content) throws IOException {
+        Path path = sourcePath.resolve(file);
+
+        Files.createDirectories(path.getParent());
+        Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+    }
+}